@@ -1,13 +1,37 @@
 package org.bigcompany;
 
+import org.bigcompany.exceptions.CeoAlreadyExistsException;
+import org.bigcompany.exceptions.EmployeeAlreadyExistsException;
+import org.bigcompany.io.ColumnarMetricsExporter;
+import org.bigcompany.io.CsvFileWatcher;
 import org.bigcompany.io.CsvParser;
+import org.bigcompany.io.CsvSharder;
+import org.bigcompany.io.MetricsCache;
+import org.bigcompany.io.OrgDiffReport;
 import org.bigcompany.io.ResultsParser;
+import org.bigcompany.io.SnapshotSorter;
+import org.bigcompany.io.SortedResultsExporter;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.LookupPage;
+import org.bigcompany.model.MetricType;
+import org.bigcompany.model.Metrics;
+import org.bigcompany.model.OrgShard;
 import org.bigcompany.service.CompanyService;
+import org.bigcompany.service.EmployeeLookupIndex;
+import org.bigcompany.service.IncrementalAnalysis;
+import org.bigcompany.service.OrgDiffService;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.text.MessageFormat;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 
 public class Main {
+    private static final int SEARCH_PAGE_SIZE = 20;
+
     public static void main(String[] args) {
         String filePath = "";
 
@@ -18,15 +42,379 @@ public class Main {
             return;
         }
 
+        if ("--compare".equals(filePath)) {
+            compare(args);
+            return;
+        }
+
+        if ("--watch".equals(filePath)) {
+            watch(args);
+            return;
+        }
+
+        if ("--analytics".equals(filePath)) {
+            analytics(args);
+            return;
+        }
+
+        if ("--export".equals(filePath)) {
+            export(args);
+            return;
+        }
+
+        if ("--export-columnar".equals(filePath)) {
+            exportColumnar(args);
+            return;
+        }
+
+        if ("--sharded".equals(filePath)) {
+            sharded(args);
+            return;
+        }
+
+        if ("--metrics".equals(filePath)) {
+            metrics(args);
+            return;
+        }
+
+        if ("--search".equals(filePath)) {
+            search(args);
+            return;
+        }
+
+        MetricsCache cache = null;
+        if ("--cache".equals(filePath)) {
+            if (args.length < 3) {
+                System.out.println("Usage: --cache <cache directory> <file path>");
+                return;
+            }
+            cache = new MetricsCache(Path.of(args[1]));
+            filePath = args[2];
+        }
+
         var csvParser = new CsvParser();
         var service = new CompanyService();
 
         try {
-            var ceo = csvParser.parseCsv(filePath);
-            var metrics = service.navigateStructureAndProcessMetrics(ceo);
+            String cacheKey = cache == null ? null : cache.computeKey(Path.of(filePath));
+            var metrics = cache == null ? null : cache.get(cacheKey).orElse(null);
+
+            if (metrics == null) {
+                var ceo = csvParser.parseCsv(filePath);
+                metrics = service.navigateStructureAndProcessMetrics(ceo);
+                if (cache != null && metrics != null) {
+                    try {
+                        cache.put(cacheKey, metrics);
+                    } catch (IOException e) {
+                        // The results are still shown, the next run computes them again
+                        System.out.println(MessageFormat.format("Warning: could not write to cache {0}", args[1]));
+                        System.out.println();
+                    }
+                }
+            }
+
             ResultsParser.displayOnConsole(metrics);
         } catch (IOException e) {
             System.out.println(MessageFormat.format("Error reading file {0}", filePath));
         }
     }
-}
\ No newline at end of file
+
+    private static void compare(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: --compare <previous file path> <current file path>");
+            return;
+        }
+
+        var csvParser = new CsvParser();
+        var service = new CompanyService();
+        String filePath = args[1];
+
+        // Each snapshot is spilled by id and only one hierarchy is loaded at a time, so besides that hierarchy
+        // memory use is fixed. The snapshots are then joined with a sorted merge, and changes are spilled by type
+        try (var previous = new SnapshotSorter(); var current = new SnapshotSorter(); var report = new OrgDiffReport()) {
+            sortSnapshot(service, csvParser.parseCsv(filePath), previous);
+            filePath = args[2];
+            sortSnapshot(service, csvParser.parseCsv(filePath), current);
+
+            new OrgDiffService().compareSortedById(previous.sortedById(), current.sortedById(), change -> {
+                try {
+                    report.add(change);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            ResultsParser.displayOnConsole(report);
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println(MessageFormat.format("Error reading file {0}", filePath));
+        }
+    }
+
+    private static void sortSnapshot(CompanyService service, Employee ceo, SnapshotSorter sorter) {
+        service.evaluateEmployees(ceo, employee -> {
+            try {
+                sorter.add(employee);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static void analytics(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: --analytics <file path>");
+            return;
+        }
+
+        String filePath = args[1];
+
+        try {
+            var ceo = new CsvParser().parseCsv(filePath);
+            var analytics = new CompanyService().navigateStructureAndProcessAnalytics(ceo);
+            ResultsParser.displayOnConsole(analytics);
+        } catch (IOException e) {
+            System.out.println(MessageFormat.format("Error reading file {0}", filePath));
+        }
+    }
+
+    private static void export(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: --export <file path> <output path> [id|difference|depth] [max results in memory]");
+            return;
+        }
+
+        String filePath = args[1];
+        SortedResultsExporter.SortOrder sortOrder = SortedResultsExporter.SortOrder.ID;
+        int maxResultsInMemory = SortedResultsExporter.DEFAULT_MAX_RESULTS_IN_MEMORY;
+        try {
+            if (args.length > 3) {
+                sortOrder = switch (args[3]) {
+                    case "id" -> SortedResultsExporter.SortOrder.ID;
+                    case "difference" -> SortedResultsExporter.SortOrder.DIFFERENCE_FROM_EXPECTED_PAY;
+                    case "depth" -> SortedResultsExporter.SortOrder.DISTANCE_TO_CEO;
+                    default -> throw new IllegalArgumentException(MessageFormat.format("Unsupported sort order {0}", args[3]));
+                };
+            }
+            if (args.length > 4) {
+                maxResultsInMemory = Integer.parseInt(args[4]);
+                if (maxResultsInMemory < 1) {
+                    throw new IllegalArgumentException("Max results in memory must be at least 1");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        try (var exporter = new SortedResultsExporter(sortOrder, maxResultsInMemory)) {
+            var ceo = new CsvParser().parseCsv(filePath);
+            new CompanyService().evaluateEmployees(ceo, employee -> {
+                try {
+                    exporter.add(employee);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            exporter.writeTo(Path.of(args[2]));
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println(MessageFormat.format("Error exporting file {0}", filePath));
+        }
+    }
+
+    private static void exportColumnar(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: --export-columnar <file path> <output path>");
+            return;
+        }
+
+        String filePath = args[1];
+
+        try (var exporter = new ColumnarMetricsExporter()) {
+            var ceo = new CsvParser().parseCsv(filePath);
+            new CompanyService().evaluateEmployees(ceo, employee -> {
+                try {
+                    exporter.add(employee);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            exporter.writeTo(Path.of(args[2]));
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println(MessageFormat.format("Error exporting file {0}", filePath));
+        }
+    }
+
+    private static void metrics(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: --metrics <overpaid,underpaid,far> <file path>");
+            return;
+        }
+
+        Set<MetricType> metricTypes = EnumSet.noneOf(MetricType.class);
+        try {
+            for (String metric : args[1].split(",")) {
+                metricTypes.add(switch (metric.trim()) {
+                    case "overpaid" -> MetricType.OVERPAID_MANAGERS;
+                    case "underpaid" -> MetricType.UNDERPAID_MANAGERS;
+                    case "far" -> MetricType.EMPLOYEES_FAR_FROM_CEO;
+                    default -> throw new IllegalArgumentException(MessageFormat.format("Unsupported metric {0}", metric));
+                });
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        String filePath = args[2];
+
+        try {
+            var ceo = new CsvParser().parseCsv(filePath);
+            var metrics = new CompanyService().navigateStructureAndProcessMetrics(ceo, metricTypes);
+            if (metrics != null) {
+                ResultsParser.displayOnConsole(metrics, metricTypes);
+            }
+        } catch (IOException e) {
+            System.out.println(MessageFormat.format("Error reading file {0}", filePath));
+        }
+    }
+
+    private static void search(String[] args) {
+        if (args.length < 4) {
+            System.out.println("Usage: --search <file path> <first|last|id> <name, name prefix* or id> [page]");
+            return;
+        }
+
+        String filePath = args[1];
+        String query = args[3];
+        int page = 1;
+        try {
+            if (args.length > 4) {
+                page = Integer.parseInt(args[4]);
+            }
+            if (page < 1) {
+                throw new IllegalArgumentException(MessageFormat.format("Invalid page {0}", args[4]));
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        EmployeeLookupIndex.NameField field;
+        switch (args[2]) {
+            case "first" -> field = EmployeeLookupIndex.NameField.FIRST_NAME;
+            case "last" -> field = EmployeeLookupIndex.NameField.LAST_NAME;
+            case "id" -> field = null;
+            default -> {
+                System.out.println(MessageFormat.format("Unsupported search field {0}", args[2]));
+                return;
+            }
+        }
+
+        try {
+            var ceo = new CsvParser().parseCsv(filePath);
+            var index = new EmployeeLookupIndex(new CompanyService().evaluateEmployees(ceo));
+
+            LookupPage result;
+            int offset = (page - 1) * SEARCH_PAGE_SIZE;
+            if (field == null) {
+                var employee = index.findById(query);
+                result = new LookupPage(employee.stream().toList(), employee.isPresent() ? 1 : 0, 0, SEARCH_PAGE_SIZE);
+            } else if (query.endsWith("*")) {
+                result = index.searchByPrefix(field, query.substring(0, query.length() - 1), offset, SEARCH_PAGE_SIZE);
+            } else {
+                result = index.findByName(field, query, offset, SEARCH_PAGE_SIZE);
+            }
+            ResultsParser.displayOnConsole(result);
+        } catch (IOException e) {
+            System.out.println(MessageFormat.format("Error reading file {0}", filePath));
+        }
+    }
+
+    private static void sharded(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: --sharded <file path> <max employees per shard> [parallel]");
+            return;
+        }
+
+        String filePath = args[1];
+        int maxEmployeesPerShard;
+        try {
+            maxEmployeesPerShard = Integer.parseInt(args[2]);
+        } catch (NumberFormatException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        // Each shard loads at least one employee and the summary of its subordinates in other shards
+        if (maxEmployeesPerShard < 2) {
+            System.out.println("Max employees per shard must be at least 2");
+            return;
+        }
+        boolean parallel = args.length > 3 && "parallel".equals(args[3]);
+
+        var csvParser = new CsvParser();
+        var service = new CompanyService();
+
+        try (var sharder = new CsvSharder()) {
+            List<OrgShard> shards = sharder.split(Path.of(filePath), maxEmployeesPerShard);
+
+            // Each shard is loaded on its own, in parallel the memory used grows with the number of workers
+            List<Metrics> shardMetrics = (parallel ? shards.parallelStream() : shards.stream())
+                    .map(shard -> {
+                        try {
+                            var employeesById = csvParser.parseShard(shard);
+                            return service.navigateShardAndProcessMetrics(shard, employeesById);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toList();
+
+            ResultsParser.displayOnConsole(service.mergeShardMetrics(shardMetrics));
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println(MessageFormat.format("Error reading file {0}", filePath));
+        }
+    }
+
+    private static void watch(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: --watch <file path>");
+            return;
+        }
+
+        String filePath = args[1];
+        var analysis = new IncrementalAnalysis();
+
+        try (var watcher = new CsvFileWatcher(Path.of(filePath), new CsvParser(),
+                line -> System.out.println(MessageFormat.format("Skipped row {0}: invalid value", line)))) {
+            watcher.watch(employees -> {
+                addToAnalysis(analysis, employees);
+                System.out.println(MessageFormat.format(
+                        "Employees loaded: {0}, waiting for their manager: {1}",
+                        analysis.getEmployeeCount(),
+                        analysis.getPendingCount()));
+                System.out.println();
+                ResultsParser.displayOnConsole(analysis.getMetrics());
+            });
+        } catch (IOException e) {
+            System.out.println(MessageFormat.format("Error reading file {0}", filePath));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void addToAnalysis(IncrementalAnalysis analysis, List<Employee> employees) {
+        try {
+            analysis.addEmployees(employees);
+        } catch (EmployeeAlreadyExistsException | CeoAlreadyExistsException e) {
+            // Nothing from the batch was added, so its rows are added one at a time to keep the valid ones
+            for (Employee employee : employees) {
+                try {
+                    analysis.addEmployees(List.of(employee));
+                } catch (EmployeeAlreadyExistsException ex) {
+                    System.out.println(MessageFormat.format("Skipped row {0}: id already loaded", employee.getId()));
+                } catch (CeoAlreadyExistsException ex) {
+                    System.out.println(MessageFormat.format("Skipped row {0}: CEO already loaded", employee.getId()));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package org.bigcompany.exceptions;
+
+public class EmployeeNotFoundException extends IllegalArgumentException {
+}
@@ -0,0 +1,225 @@
+package org.bigcompany.io;
+
+import org.bigcompany.io.ColumnarMetricsFile.Column;
+import org.bigcompany.model.EmployeeMetrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+
+/**
+ * Writes the metrics of every employee to a columnar binary file, laid out as described in {@link ColumnarMetricsFile}.
+ * <p>
+ * Employees are added one at a time and each column is appended to its own temporary file, so memory use does not
+ * grow with the number of employees. The columns are copied one after the other into the output when it is written.
+ * <p>
+ * Averages are stored in hundredths and differences from expected pay in thousandths, rounded half up when they have
+ * more decimal places. An employee with a value too large for the column is rejected with an {@link IOException}
+ * before any of its values is written.
+ */
+public final class ColumnarMetricsExporter implements Closeable {
+    private static final int COLUMN_BUFFER_SIZE = 64 * 1024;
+
+    private final Path tempDirectory;
+    private final ColumnWriter[] columns = new ColumnWriter[Column.values().length];
+    private long rowCount;
+    private long idBytesWritten;
+
+    public ColumnarMetricsExporter() throws IOException {
+        this.tempDirectory = Files.createTempDirectory("bigcompany-columnar");
+        try {
+            for (Column column : Column.values()) {
+                columns[column.ordinal()] = new ColumnWriter(Files.createTempFile(tempDirectory, column.name(), ".bin"));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        // The ids are delimited by their start offsets, plus the end of the last one
+        column(Column.ID_OFFSETS).putLong(0);
+    }
+
+    public void add(EmployeeMetrics employee) throws IOException {
+        long averageSalary = toFixedPoint(employee.directSubordinatesAverageSalary(), ColumnarMetricsFile.AVERAGE_SALARY_SCALE);
+        long differenceFromExpectedPay = toFixedPoint(employee.differenceFromExpectedPay(),
+                ColumnarMetricsFile.DIFFERENCE_FROM_EXPECTED_PAY_SCALE);
+
+        byte[] id = employee.id().getBytes(StandardCharsets.UTF_8);
+        idBytesWritten += id.length;
+        column(Column.ID_BYTES).put(id);
+        column(Column.ID_OFFSETS).putLong(idBytesWritten);
+
+        column(Column.MANAGERS_TO_CEO).putInt(employee.totalManagersToCeo());
+        column(Column.DIRECT_SUBORDINATES_AVERAGE_SALARY).putLong(averageSalary);
+        column(Column.DIFFERENCE_FROM_EXPECTED_PAY).putLong(differenceFromExpectedPay);
+
+        int flags = 0;
+        if (employee.overpaid()) {
+            flags |= ColumnarMetricsFile.FLAG_OVERPAID;
+        }
+        if (employee.underpaid()) {
+            flags |= ColumnarMetricsFile.FLAG_UNDERPAID;
+        }
+        if (employee.farFromCeo()) {
+            flags |= ColumnarMetricsFile.FLAG_FAR_FROM_CEO;
+        }
+        column(Column.FLAGS).putByte(flags);
+
+        rowCount++;
+    }
+
+    public void writeTo(Path output) throws IOException {
+        int columnCount = columns.length;
+        ByteBuffer headers = ByteBuffer
+                .allocate(ColumnarMetricsFile.HEADER_SIZE + columnCount * ColumnarMetricsFile.DIRECTORY_ENTRY_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        headers.putInt(ColumnarMetricsFile.FORMAT_MAGIC);
+        headers.putInt(ColumnarMetricsFile.FORMAT_VERSION);
+        headers.putLong(rowCount);
+        headers.putInt(columnCount);
+        headers.putInt(0);
+
+        long position = align(headers.capacity());
+        for (Column column : Column.values()) {
+            ColumnWriter writer = column(column);
+            writer.flush();
+            headers.putInt(column.ordinal());
+            headers.putInt(column.width());
+            headers.putLong(position);
+            headers.putLong(writer.length());
+            position = align(position + writer.length());
+        }
+        headers.flip();
+
+        try (var out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            out.write(headers);
+            pad(out);
+            for (Column column : Column.values()) {
+                column(column).copyTo(out);
+                pad(out);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ColumnWriter column : columns) {
+            if (column != null) {
+                column.close();
+            }
+        }
+        Files.deleteIfExists(tempDirectory);
+    }
+
+    private ColumnWriter column(Column column) {
+        return columns[column.ordinal()];
+    }
+
+    private static long toFixedPoint(BigDecimal value, int scale) throws IOException {
+        if (value == null) {
+            return ColumnarMetricsFile.NULL_DECIMAL;
+        }
+        try {
+            long fixedPoint = value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            if (fixedPoint == ColumnarMetricsFile.NULL_DECIMAL) {
+                throw new ArithmeticException();
+            }
+            return fixedPoint;
+        } catch (ArithmeticException e) {
+            throw new IOException(MessageFormat.format("{0} is too large for a columnar metrics file", value.toPlainString()));
+        }
+    }
+
+    private static long align(long position) {
+        int alignment = ColumnarMetricsFile.COLUMN_ALIGNMENT;
+        return (position + alignment - 1) / alignment * alignment;
+    }
+
+    // Zeros up to the next aligned position, written out as the content of skipped bytes is unspecified
+    private static void pad(FileChannel out) throws IOException {
+        ByteBuffer padding = ByteBuffer.allocate((int) (align(out.position()) - out.position()));
+        while (padding.hasRemaining()) {
+            out.write(padding);
+        }
+    }
+
+    /**
+     * Buffered little-endian writer for the temporary file of a single column.
+     */
+    private static final class ColumnWriter implements Closeable {
+        private final Path path;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(COLUMN_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        ColumnWriter(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        void putInt(int value) throws IOException {
+            ensureRemaining(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensureRemaining(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putByte(int value) throws IOException {
+            ensureRemaining(Byte.BYTES);
+            buffer.put((byte) value);
+        }
+
+        void put(byte[] values) throws IOException {
+            for (int from = 0; from < values.length; ) {
+                ensureRemaining(1);
+                int length = Math.min(buffer.remaining(), values.length - from);
+                buffer.put(values, from, length);
+                from += length;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        long length() throws IOException {
+            return channel.size() + buffer.position();
+        }
+
+        void copyTo(FileChannel out) throws IOException {
+            flush();
+            long length = channel.size();
+            for (long copied = 0; copied < length; ) {
+                copied += channel.transferTo(copied, length - copied, out);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+
+        private void ensureRemaining(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
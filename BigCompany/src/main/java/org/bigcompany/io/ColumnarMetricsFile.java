@@ -0,0 +1,188 @@
+package org.bigcompany.io;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+
+/**
+ * Read-only view of a file written by {@link ColumnarMetricsExporter}, with each column memory-mapped on its own.
+ * <p>
+ * Layout, every number little-endian:
+ * <pre>
+ * Header (24 bytes)
+ *   int32  magic "BCCM" (0x4d434342 read as little-endian)
+ *   int32  format version
+ *   int64  row count
+ *   int32  column count
+ *   int32  reserved, zero
+ * Column directory (24 bytes per column)
+ *   int32  column, the ordinal of {@link Column}
+ *   int32  width of a value in bytes
+ *   int64  offset of the column from the start of the file, a multiple of 8
+ *   int64  length of the column in bytes
+ * Columns, one value per employee in the same row order, padded with zeros to 8 bytes
+ *   ID_OFFSETS          int64, row count + 1 values, where the id of row i is ID_BYTES[ID_OFFSETS[i], ID_OFFSETS[i + 1])
+ *   ID_BYTES            uint8, the UTF-8 bytes of every id
+ *   MANAGERS_TO_CEO     int32, -1 for the CEO
+ *   DIRECT_SUBORDINATES_AVERAGE_SALARY  int64, in hundredths, {@link #NULL_DECIMAL} for employees without subordinates
+ *   DIFFERENCE_FROM_EXPECTED_PAY        int64, in thousandths rounded half up, {@link #NULL_DECIMAL} when it was not computed
+ *   FLAGS               uint8, {@link #FLAG_OVERPAID}, {@link #FLAG_UNDERPAID} and {@link #FLAG_FAR_FROM_CEO}
+ * </pre>
+ * A reader scanning a single column only touches the pages of that column.
+ */
+public class ColumnarMetricsFile {
+    public enum Column {
+        ID_OFFSETS(Long.BYTES),
+        ID_BYTES(Byte.BYTES),
+        MANAGERS_TO_CEO(Integer.BYTES),
+        DIRECT_SUBORDINATES_AVERAGE_SALARY(Long.BYTES),
+        DIFFERENCE_FROM_EXPECTED_PAY(Long.BYTES),
+        FLAGS(Byte.BYTES);
+
+        private final int width;
+
+        Column(int width) {
+            this.width = width;
+        }
+
+        public int width() {
+            return width;
+        }
+    }
+
+    public static final int FLAG_OVERPAID = 1;
+    public static final int FLAG_UNDERPAID = 1 << 1;
+    public static final int FLAG_FAR_FROM_CEO = 1 << 2;
+    public static final long NULL_DECIMAL = Long.MIN_VALUE;
+    public static final int AVERAGE_SALARY_SCALE = 2;
+    public static final int DIFFERENCE_FROM_EXPECTED_PAY_SCALE = 3;
+
+    static final int FORMAT_MAGIC = 0x4d434342; // "BCCM"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int DIRECTORY_ENTRY_SIZE = 24;
+    static final int COLUMN_ALIGNMENT = 8;
+
+    private final int rowCount;
+    private final ByteBuffer[] columns = new ByteBuffer[Column.values().length];
+
+    private ColumnarMetricsFile(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public static ColumnarMetricsFile open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0);
+            if (header.getInt(0) != FORMAT_MAGIC) {
+                throw new IOException(MessageFormat.format("{0} is not a columnar metrics file", path));
+            }
+            if (header.getInt(4) != FORMAT_VERSION) {
+                throw new IOException(MessageFormat.format("Unsupported columnar metrics version {0}", header.getInt(4)));
+            }
+            long rowCount = header.getLong(8);
+            int columnCount = header.getInt(16);
+            if (rowCount < 0 || rowCount >= Integer.MAX_VALUE / Long.BYTES || columnCount != Column.values().length) {
+                throw new IOException("Corrupted columnar metrics header");
+            }
+
+            var file = new ColumnarMetricsFile((int) rowCount);
+            ByteBuffer directory = ByteBuffer.allocate(columnCount * DIRECTORY_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, directory, HEADER_SIZE);
+            for (int i = 0; i < columnCount; i++) {
+                int ordinal = directory.getInt();
+                int width = directory.getInt();
+                long offset = directory.getLong();
+                long length = directory.getLong();
+                if (ordinal < 0 || ordinal >= columnCount || width != Column.values()[ordinal].width()
+                        || offset < 0 || length < 0 || length > Integer.MAX_VALUE || offset + length > channel.size()) {
+                    throw new IOException("Corrupted columnar metrics directory");
+                }
+                file.columns[ordinal] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            file.validateLengths();
+            return file;
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Read-only little-endian buffer over a whole column, for scanning it without creating any objects.
+     */
+    public ByteBuffer column(Column column) {
+        return columns[column.ordinal()].asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public String getId(int row) {
+        ByteBuffer offsets = columns[Column.ID_OFFSETS.ordinal()];
+        int from = (int) offsets.getLong(row * Long.BYTES);
+        int to = (int) offsets.getLong((row + 1) * Long.BYTES);
+        byte[] bytes = new byte[to - from];
+        columns[Column.ID_BYTES.ordinal()].get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int getTotalManagersToCeo(int row) {
+        return columns[Column.MANAGERS_TO_CEO.ordinal()].getInt(row * Integer.BYTES);
+    }
+
+    public BigDecimal getDirectSubordinatesAverageSalary(int row) {
+        return toDecimal(columns[Column.DIRECT_SUBORDINATES_AVERAGE_SALARY.ordinal()].getLong(row * Long.BYTES), AVERAGE_SALARY_SCALE);
+    }
+
+    public BigDecimal getDifferenceFromExpectedPay(int row) {
+        return toDecimal(columns[Column.DIFFERENCE_FROM_EXPECTED_PAY.ordinal()].getLong(row * Long.BYTES), DIFFERENCE_FROM_EXPECTED_PAY_SCALE);
+    }
+
+    public boolean isOverpaid(int row) {
+        return (flags(row) & FLAG_OVERPAID) != 0;
+    }
+
+    public boolean isUnderpaid(int row) {
+        return (flags(row) & FLAG_UNDERPAID) != 0;
+    }
+
+    public boolean isFarFromCeo(int row) {
+        return (flags(row) & FLAG_FAR_FROM_CEO) != 0;
+    }
+
+    private int flags(int row) {
+        return columns[Column.FLAGS.ordinal()].get(row);
+    }
+
+    private void validateLengths() throws IOException {
+        for (Column column : Column.values()) {
+            ByteBuffer buffer = columns[column.ordinal()];
+            long expectedLength = switch (column) {
+                case ID_OFFSETS -> (rowCount + 1L) * column.width();
+                case ID_BYTES -> columns[Column.ID_OFFSETS.ordinal()].getLong(rowCount * Long.BYTES);
+                default -> (long) rowCount * column.width();
+            };
+            if (buffer == null || buffer.capacity() != expectedLength) {
+                throw new IOException(MessageFormat.format("Corrupted columnar metrics column {0}", column));
+            }
+        }
+    }
+
+    private static BigDecimal toDecimal(long unscaledValue, int scale) {
+        return unscaledValue == NULL_DECIMAL ? null : BigDecimal.valueOf(unscaledValue, scale);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated columnar metrics file");
+            }
+        }
+        buffer.flip();
+    }
+}
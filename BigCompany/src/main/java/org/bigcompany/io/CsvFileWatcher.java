@@ -0,0 +1,131 @@
+package org.bigcompany.io;
+
+import org.bigcompany.model.Employee;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tails a CSV file that is still being written, parsing only the bytes appended since the last read.
+ * <p>
+ * Only complete lines are consumed: a trailing line without its line break is left for the next read.
+ * Complete lines that can not be parsed are handed to the invalid line handler and skipped.
+ */
+public class CsvFileWatcher implements Closeable {
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final Path file;
+    private final CsvParser csvParser;
+    private final Consumer<String> invalidLineHandler;
+    private final WatchService watchService;
+
+    private long position;
+    private String[] headers;
+
+    public CsvFileWatcher(Path file, CsvParser csvParser, Consumer<String> invalidLineHandler) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.csvParser = csvParser;
+        this.invalidLineHandler = invalidLineHandler;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    /**
+     * Parses the complete lines appended since the last call. The first line of the file is read as the header.
+     */
+    public List<Employee> readAppendedEmployees() throws IOException {
+        List<Employee> employees = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return employees;
+        }
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < position) {
+                throw new IOException("File was truncated while being watched");
+            }
+
+            long consumed = position;
+            String[] lineHeaders = headers;
+            channel.position(position);
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            byte[] pending = new byte[0];
+
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                byte[] chunk = new byte[pending.length + buffer.remaining()];
+                System.arraycopy(pending, 0, chunk, 0, pending.length);
+                buffer.get(chunk, pending.length, buffer.remaining());
+                buffer.clear();
+
+                int lineStart = 0;
+                for (int i = 0; i < chunk.length; i++) {
+                    if (chunk[i] == '\n') {
+                        int lineEnd = i > lineStart && chunk[i - 1] == '\r' ? i - 1 : i;
+                        String line = new String(chunk, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+                        if (lineHeaders == null) {
+                            lineHeaders = line.split(",");
+                        } else {
+                            try {
+                                employees.add(csvParser.parseLine(lineHeaders, line));
+                            } catch (IllegalArgumentException e) {
+                                // Reading it again would fail the same way, so it is reported and left behind
+                                invalidLineHandler.accept(line);
+                            }
+                        }
+                        consumed += i + 1 - lineStart;
+                        lineStart = i + 1;
+                    }
+                }
+
+                pending = new byte[chunk.length - lineStart];
+                System.arraycopy(chunk, lineStart, pending, 0, pending.length);
+            }
+
+            position = consumed;
+            headers = lineHeaders;
+        }
+
+        return employees;
+    }
+
+    /**
+     * Blocks until interrupted, handing each group of appended employees to the consumer.
+     * The file is also checked periodically, since some file systems do not report every modification.
+     */
+    public void watch(Consumer<List<Employee>> consumer) throws IOException, InterruptedException {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Employee> employees = readAppendedEmployees();
+            if (!employees.isEmpty()) {
+                consumer.accept(employees);
+            }
+
+            WatchKey key = watchService.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            if (key != null) {
+                key.pollEvents();
+                key.reset();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -5,12 +5,14 @@ import org.bigcompany.exceptions.EmployeeAlreadyExistsException;
 import org.bigcompany.exceptions.ManagerNotFoundException;
 import org.bigcompany.exceptions.CeoAlreadyExistsException;
 import org.bigcompany.model.Employee;
+import org.bigcompany.model.OrgShard;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
@@ -23,6 +25,27 @@ public class CsvParser {
         return buildCompanyStructure(employeesById);
     }
 
+    /**
+     * Loads a shard written by {@link CsvSharder}. Employees are linked to the managers found in the same file,
+     * the CEO and the roots of the shard are left without a manager. Managers with subordinates in other shards
+     * are given the summary of those subordinates.
+     */
+    public Map<String, Employee> parseShard(OrgShard shard) throws IOException {
+        Map<String, Employee> employeesById = csvToEmployeeList(shard.filePath());
+
+        for (Employee employee : employeesById.values()) {
+            Employee manager = employee.getManagerId() == null ? null : employeesById.get(employee.getManagerId());
+            if (manager != null) {
+                employee.setManager(manager);
+                manager.addSubordinate(employee);
+            }
+        }
+        shard.unloadedSubordinates().forEach((id, summary) -> employeesById.get(id).setUnloadedSubordinates(summary));
+        seal(employeesById);
+
+        return employeesById;
+    }
+
     public Map<String, Employee> csvToEmployeeList(String filePath) throws IOException {
         Map<String, Employee> employeesById = new HashMap<>();
 
@@ -35,20 +58,12 @@ public class CsvParser {
             }
 
             while ((line = br.readLine()) != null) {
-                String[] values = line.split(",");
-                Map<String, String> fields = new HashMap<>();
-
-                for (int i = 0; i < headers.length; i++) {
-                    String key = headers[i].trim();
-                    String value = i < values.length ? values[i].trim() : "";
-                    fields.put(key, value);
-                }
+                Employee node = parseLine(headers, line);
 
-                if (employeesById.containsKey(fields.get("Id"))) {
+                if (employeesById.containsKey(node.getId())) {
                     throw new EmployeeAlreadyExistsException();
                 }
 
-                Employee node = createEmployeeNode(fields);
                 employeesById.put(node.getId(), node);
             }
         }
@@ -56,6 +71,19 @@ public class CsvParser {
         return employeesById;
     }
 
+    public Employee parseLine(String[] headers, String line) {
+        String[] values = line.split(",");
+        Map<String, String> fields = new HashMap<>();
+
+        for (int i = 0; i < headers.length; i++) {
+            String key = headers[i].trim();
+            String value = i < values.length ? values[i].trim() : "";
+            fields.put(key, value);
+        }
+
+        return createEmployeeNode(fields);
+    }
+
     private Employee createEmployeeNode(Map<String, String> fields) {
         if (fields.get("Id") == null || fields.get("Id").isEmpty()
                 || fields.get("firstName") == null || fields.get("firstName").isEmpty()
@@ -109,7 +137,19 @@ public class CsvParser {
             throw new CeoNotFoundException();
         }
 
+        seal(concurrentEmployeesById);
+
         return ceo.get();
     }
 
+    /**
+     * Replaces the lists of subordinates with unmodifiable copies, so the hierarchy can be shared between analyses
+     * running on different threads once it is built.
+     */
+    private void seal(Map<String, Employee> employeesById) {
+        employeesById.values().parallelStream()
+                .filter(employee -> employee.getSubordinates() != null)
+                .forEach(employee -> employee.setSubordinates(List.copyOf(employee.getSubordinates())));
+    }
+
 }
@@ -0,0 +1,306 @@
+package org.bigcompany.io;
+
+import org.bigcompany.exceptions.CeoAlreadyExistsException;
+import org.bigcompany.exceptions.CeoNotFoundException;
+import org.bigcompany.exceptions.EmployeeAlreadyExistsException;
+import org.bigcompany.exceptions.ManagerNotFoundException;
+import org.bigcompany.model.OrgShard;
+import org.bigcompany.model.SubordinatesSummary;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits an organisation too large to be loaded at once into shards that can be processed independently.
+ * <p>
+ * A first pass over the CSV only keeps each employee's id and manager. Subtrees that fit in the budget are packed
+ * together into shards, and employees with larger subtrees are grouped into shards of their own. A second pass
+ * writes the rows of each shard to a temporary file, and sums up the salaries of the direct subordinates placed in
+ * another shard than their manager, as described in {@link OrgShard}.
+ * Employees not connected to the CEO are left out, as they are never reached from the CEO either.
+ */
+public class CsvSharder implements Closeable {
+    static final int MAX_OPEN_SHARD_FILES = 128;
+    private static final int NONE = -1;
+
+    private final Path tempDirectory;
+
+    public CsvSharder() throws IOException {
+        this.tempDirectory = Files.createTempDirectory("bigcompany-shards");
+    }
+
+    private record Skeleton(String header, List<String> ids, int[] managers, int ceo) {
+    }
+
+    /**
+     * @param maxEmployeesPerShard employees loaded for each shard, counting the members and the summaries of
+     *                             subordinates in other shards, at least 2
+     */
+    public List<OrgShard> split(Path file, int maxEmployeesPerShard) throws IOException {
+        if (maxEmployeesPerShard < 2) {
+            throw new IllegalArgumentException("Invalid memory settings for sharding");
+        }
+
+        Skeleton skeleton = readSkeleton(file);
+        if (skeleton == null || skeleton.ids().isEmpty()) {
+            return List.of();
+        }
+
+        int size = skeleton.ids().size();
+        int[] managers = skeleton.managers();
+
+        // Subordinates of each employee, as consecutive ranges of a single array
+        int[] firstSubordinate = new int[size + 1];
+        for (int manager : managers) {
+            if (manager != NONE) {
+                firstSubordinate[manager + 1]++;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            firstSubordinate[i + 1] += firstSubordinate[i];
+        }
+        int[] subordinates = new int[firstSubordinate[size]];
+        int[] next = Arrays.copyOf(firstSubordinate, size);
+        for (int i = 0; i < size; i++) {
+            if (managers[i] != NONE) {
+                subordinates[next[managers[i]]++] = i;
+            }
+        }
+
+        // Breadth-first order from the CEO, counting the people above each employee
+        int[] order = new int[size];
+        int[] totalPeopleAbove = new int[size];
+        Arrays.fill(totalPeopleAbove, NONE);
+        totalPeopleAbove[skeleton.ceo()] = 0;
+        order[0] = skeleton.ceo();
+        int connected = 1;
+        for (int head = 0; head < connected; head++) {
+            int employee = order[head];
+            for (int i = firstSubordinate[employee]; i < firstSubordinate[employee + 1]; i++) {
+                totalPeopleAbove[subordinates[i]] = totalPeopleAbove[employee] + 1;
+                order[connected++] = subordinates[i];
+            }
+        }
+
+        int[] subtreeSize = new int[size];
+        for (int k = connected - 1; k >= 0; k--) {
+            int employee = order[k];
+            subtreeSize[employee]++;
+            if (managers[employee] != NONE) {
+                subtreeSize[managers[employee]] += subtreeSize[employee];
+            }
+        }
+
+        int[] owner = new int[size];
+        Arrays.fill(owner, NONE);
+        List<Integer> memberCounts = new ArrayList<>();
+        List<Integer> loads = new ArrayList<>();
+        int upperShard = NONE;
+        int lowerShard = NONE;
+        for (int k = 0; k < connected; k++) {
+            int employee = order[k];
+            int manager = managers[employee];
+
+            if (subtreeSize[employee] > maxEmployeesPerShard) {
+                // Its own row, plus a single summary however many of its subordinates are in other shards
+                if (upperShard == NONE || loads.get(upperShard) + 2 > maxEmployeesPerShard) {
+                    upperShard = memberCounts.size();
+                    memberCounts.add(0);
+                    loads.add(0);
+                }
+                owner[employee] = upperShard;
+                memberCounts.set(upperShard, memberCounts.get(upperShard) + 1);
+                loads.set(upperShard, loads.get(upperShard) + 2);
+            } else if (manager != NONE && subtreeSize[manager] <= maxEmployeesPerShard) {
+                // The whole subtree was placed with its root
+                owner[employee] = owner[manager];
+            } else {
+                if (lowerShard == NONE || loads.get(lowerShard) + subtreeSize[employee] > maxEmployeesPerShard) {
+                    lowerShard = memberCounts.size();
+                    memberCounts.add(0);
+                    loads.add(0);
+                }
+                owner[employee] = lowerShard;
+                memberCounts.set(lowerShard, memberCounts.get(lowerShard) + subtreeSize[employee]);
+                loads.set(lowerShard, loads.get(lowerShard) + subtreeSize[employee]);
+            }
+        }
+
+        List<Map<String, Integer>> roots = new ArrayList<>();
+        List<Map<String, SubordinatesSummary>> unloadedSubordinates = new ArrayList<>();
+        for (int shard = 0; shard < memberCounts.size(); shard++) {
+            roots.add(new HashMap<>());
+            unloadedSubordinates.add(new HashMap<>());
+        }
+        for (int k = 0; k < connected; k++) {
+            int employee = order[k];
+            int manager = managers[employee];
+            if (manager == NONE || owner[manager] != owner[employee]) {
+                roots.get(owner[employee]).put(skeleton.ids().get(employee), totalPeopleAbove[employee]);
+            }
+        }
+
+        List<Path> shardFiles = new ArrayList<>();
+        for (int shard = 0; shard < memberCounts.size(); shard++) {
+            shardFiles.add(Files.createTempFile(tempDirectory, "shard", ".csv"));
+        }
+        for (int from = 0; from < shardFiles.size(); from += MAX_OPEN_SHARD_FILES) {
+            writeShards(file, skeleton, owner, shardFiles, unloadedSubordinates,
+                    from, Math.min(from + MAX_OPEN_SHARD_FILES, shardFiles.size()));
+        }
+
+        List<OrgShard> shards = new ArrayList<>();
+        for (int shard = 0; shard < memberCounts.size(); shard++) {
+            shards.add(new OrgShard(
+                    shardFiles.get(shard).toString(),
+                    memberCounts.get(shard),
+                    roots.get(shard),
+                    unloadedSubordinates.get(shard)));
+        }
+        return shards;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (var files = Files.list(tempDirectory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(tempDirectory);
+    }
+
+    private Skeleton readSkeleton(Path file) throws IOException {
+        Map<String, Integer> indexById = new HashMap<>();
+        List<String> ids = new ArrayList<>();
+        List<String> managerIds = new ArrayList<>();
+        String header;
+
+        try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            header = reader.readLine();
+            if (header == null) {
+                return null;
+            }
+
+            String[] headers = header.split(",");
+            int idColumn = findColumn(headers, "Id");
+            int managerIdColumn = findColumn(headers, "managerId");
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                String id = getValue(values, idColumn);
+                if (id.isEmpty()) {
+                    throw new IllegalArgumentException("Unable to create employee. Invalid value.");
+                }
+                if (indexById.putIfAbsent(id, ids.size()) != null) {
+                    throw new EmployeeAlreadyExistsException();
+                }
+                ids.add(id);
+                managerIds.add(getValue(values, managerIdColumn));
+            }
+        }
+
+        int[] managers = new int[ids.size()];
+        int ceo = NONE;
+        for (int i = 0; i < managers.length; i++) {
+            String managerId = managerIds.get(i);
+            if (managerId.isEmpty()) {
+                if (ceo != NONE) {
+                    throw new CeoAlreadyExistsException();
+                }
+                ceo = i;
+                managers[i] = NONE;
+            } else {
+                Integer manager = indexById.get(managerId);
+                if (manager == null) {
+                    throw new ManagerNotFoundException();
+                }
+                managers[i] = manager;
+            }
+        }
+
+        if (ceo == NONE && !ids.isEmpty()) {
+            throw new CeoNotFoundException();
+        }
+
+        return new Skeleton(header, ids, managers, ceo);
+    }
+
+    /**
+     * Writes the rows of the shards from {@code from} to {@code to}, rows are matched by their position in the file.
+     * Subordinates in another shard than their manager are added to the manager's summary instead.
+     */
+    private void writeShards(Path file, Skeleton skeleton, int[] owner, List<Path> shardFiles,
+            List<Map<String, SubordinatesSummary>> unloadedSubordinates, int from, int to) throws IOException {
+        List<BufferedWriter> writers = new ArrayList<>();
+        int salaryColumn = findColumn(skeleton.header().split(","), "salary");
+        try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (int shard = from; shard < to; shard++) {
+                var writer = Files.newBufferedWriter(shardFiles.get(shard), StandardCharsets.UTF_8);
+                writers.add(writer);
+                writer.write(skeleton.header());
+                writer.newLine();
+            }
+
+            reader.readLine();
+            String line;
+            for (int employee = 0; (line = reader.readLine()) != null; employee++) {
+                if (owner[employee] == NONE) {
+                    continue;
+                }
+
+                if (owner[employee] >= from && owner[employee] < to) {
+                    writeLine(writers.get(owner[employee] - from), line);
+                }
+
+                int manager = skeleton.managers()[employee];
+                if (manager != NONE && owner[manager] != owner[employee] && owner[manager] >= from && owner[manager] < to) {
+                    var summary = new SubordinatesSummary(parseSalary(getValue(line.split(","), salaryColumn)), 1);
+                    unloadedSubordinates.get(owner[manager]).merge(skeleton.ids().get(manager), summary, SubordinatesSummary::add);
+                }
+            }
+        } finally {
+            for (BufferedWriter writer : writers) {
+                writer.close();
+            }
+        }
+    }
+
+    private void writeLine(BufferedWriter writer, String line) throws IOException {
+        writer.write(line);
+        writer.newLine();
+    }
+
+    private static BigDecimal parseSalary(String salary) {
+        try {
+            return new BigDecimal(salary);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unable to create employee. Invalid value.");
+        }
+    }
+
+    private static int findColumn(String[] headers, String name) {
+        int column = NONE;
+        for (int i = 0; i < headers.length; i++) {
+            if (headers[i].trim().equals(name)) {
+                column = i;
+            }
+        }
+        return column;
+    }
+
+    private static String getValue(String[] values, int column) {
+        return column == NONE || column >= values.length ? "" : values[column].trim();
+    }
+}
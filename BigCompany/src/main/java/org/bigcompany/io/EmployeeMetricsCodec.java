@@ -0,0 +1,59 @@
+package org.bigcompany.io;
+
+import org.bigcompany.model.EmployeeMetrics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Binary representation of a single {@link EmployeeMetrics}, same as {@link EmployeeResultCodec} for results.
+ */
+final class EmployeeMetricsCodec {
+
+    private EmployeeMetricsCodec() {
+    }
+
+    static void write(DataOutputStream out, EmployeeMetrics employee) throws IOException {
+        EmployeeResultCodec.writeNullableString(out, employee.id());
+        EmployeeResultCodec.writeNullableString(out, employee.firstName());
+        EmployeeResultCodec.writeNullableString(out, employee.lastName());
+        writeNullableDecimal(out, employee.salary());
+        EmployeeResultCodec.writeNullableString(out, employee.managerId());
+        writeNullableDecimal(out, employee.directSubordinatesAverageSalary());
+        writeNullableDecimal(out, employee.differenceFromExpectedPay());
+        out.writeInt(employee.totalManagersToCeo());
+        out.writeBoolean(employee.overpaid());
+        out.writeBoolean(employee.underpaid());
+        out.writeBoolean(employee.farFromCeo());
+    }
+
+    static EmployeeMetrics read(DataInputStream in) throws IOException {
+        try {
+            return new EmployeeMetrics(
+                    EmployeeResultCodec.readNullableString(in),
+                    EmployeeResultCodec.readNullableString(in),
+                    EmployeeResultCodec.readNullableString(in),
+                    readNullableDecimal(in),
+                    EmployeeResultCodec.readNullableString(in),
+                    readNullableDecimal(in),
+                    readNullableDecimal(in),
+                    in.readInt(),
+                    in.readBoolean(),
+                    in.readBoolean(),
+                    in.readBoolean());
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupted employee metrics", e);
+        }
+    }
+
+    private static void writeNullableDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        EmployeeResultCodec.writeNullableString(out, value == null ? null : value.toString());
+    }
+
+    private static BigDecimal readNullableDecimal(DataInputStream in) throws IOException {
+        String value = EmployeeResultCodec.readNullableString(in);
+        return value == null ? null : new BigDecimal(value);
+    }
+}
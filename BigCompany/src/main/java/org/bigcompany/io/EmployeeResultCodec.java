@@ -0,0 +1,63 @@
+package org.bigcompany.io;
+
+import org.bigcompany.model.EmployeeResult;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Binary representation of a single {@link EmployeeResult}, shared by the files written by this package.
+ */
+final class EmployeeResultCodec {
+
+    private EmployeeResultCodec() {
+    }
+
+    static void write(DataOutputStream out, EmployeeResult result) throws IOException {
+        writeNullableString(out, result.id());
+        writeNullableString(out, result.firstName());
+        writeNullableString(out, result.lastName());
+        writeNullableString(out, result.salary() == null ? null : result.salary().toString());
+        writeNullableString(out, result.managerId());
+        writeNullableString(out, result.differenceFromExpectedPay() == null
+                ? null
+                : result.differenceFromExpectedPay().toString());
+        out.writeInt(result.totalManagersToCeo());
+    }
+
+    static EmployeeResult read(DataInputStream in) throws IOException {
+        String id = readNullableString(in);
+        String firstName = readNullableString(in);
+        String lastName = readNullableString(in);
+        String salary = readNullableString(in);
+        String managerId = readNullableString(in);
+        String differenceFromExpectedPay = readNullableString(in);
+        int totalManagersToCeo = in.readInt();
+
+        try {
+            return new EmployeeResult(
+                    id,
+                    firstName,
+                    lastName,
+                    salary == null ? null : new BigDecimal(salary),
+                    managerId,
+                    differenceFromExpectedPay == null ? null : new BigDecimal(differenceFromExpectedPay),
+                    totalManagersToCeo);
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupted employee result", e);
+        }
+    }
+
+    static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,203 @@
+package org.bigcompany.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts any number of values holding at most a fixed number of them in memory.
+ * <p>
+ * Values are buffered until the limit is reached, then sorted and spilled to a temporary run file.
+ * When the values are read back, the runs are merged with a k-way merge, in several passes if there are
+ * more runs than files that can be merged at once.
+ */
+final class ExternalSorter<T> implements Closeable {
+
+    interface Codec<T> {
+        void write(DataOutputStream out, T value) throws IOException;
+
+        T read(DataInputStream in) throws IOException;
+    }
+
+    /**
+     * Values in sorted order, {@link #next()} returns null once all of them were read.
+     */
+    interface Cursor<T> {
+        T next() throws IOException;
+    }
+
+    private final Comparator<T> comparator;
+    private final Codec<T> codec;
+    private final int maxValuesInMemory;
+    private final int mergeFanIn;
+    private final Path tempDirectory;
+
+    private final List<T> buffer = new ArrayList<>();
+    private final List<Path> runs = new ArrayList<>();
+    private final List<DataInputStream> openStreams = new ArrayList<>();
+
+    ExternalSorter(Comparator<T> comparator, Codec<T> codec, int maxValuesInMemory, int mergeFanIn, String tempPrefix)
+            throws IOException {
+        if (maxValuesInMemory < 1 || mergeFanIn < 2) {
+            throw new IllegalArgumentException("Invalid memory settings for sorting");
+        }
+        this.comparator = comparator;
+        this.codec = codec;
+        this.maxValuesInMemory = maxValuesInMemory;
+        this.mergeFanIn = mergeFanIn;
+        this.tempDirectory = Files.createTempDirectory(tempPrefix);
+    }
+
+    void add(T value) throws IOException {
+        buffer.add(value);
+        if (buffer.size() >= maxValuesInMemory) {
+            spill();
+        }
+    }
+
+    /**
+     * Every value added so far, in order. Can only be called once.
+     */
+    Cursor<T> sorted() throws IOException {
+        if (runs.isEmpty()) {
+            buffer.sort(comparator);
+            List<T> sorted = List.copyOf(buffer);
+            buffer.clear();
+            return new Cursor<>() {
+                private int position;
+
+                @Override
+                public T next() {
+                    return position < sorted.size() ? sorted.get(position++) : null;
+                }
+            };
+        }
+
+        spill();
+        while (runs.size() > mergeFanIn) {
+            mergePass();
+        }
+        return merge(runs);
+    }
+
+    int getRunCount() {
+        return runs.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataInputStream in : openStreams) {
+            in.close();
+        }
+        openStreams.clear();
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+        Files.deleteIfExists(tempDirectory);
+    }
+
+    private void spill() throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        buffer.sort(comparator);
+        Path run = Files.createTempFile(tempDirectory, "run", ".bin");
+        try (var out = openRun(run)) {
+            for (T value : buffer) {
+                write(out, value);
+            }
+        }
+        runs.add(run);
+        buffer.clear();
+    }
+
+    private void mergePass() throws IOException {
+        List<Path> merged = new ArrayList<>();
+        for (int from = 0; from < runs.size(); from += mergeFanIn) {
+            List<Path> group = runs.subList(from, Math.min(from + mergeFanIn, runs.size()));
+            Path run = Files.createTempFile(tempDirectory, "run", ".bin");
+            try (var out = openRun(run)) {
+                Cursor<T> cursor = merge(group);
+                for (T value = cursor.next(); value != null; value = cursor.next()) {
+                    write(out, value);
+                }
+            }
+            for (Path input : group) {
+                Files.delete(input);
+            }
+            merged.add(run);
+        }
+        runs.clear();
+        runs.addAll(merged);
+    }
+
+    private record RunCursor<T>(DataInputStream in, T current) {
+    }
+
+    /**
+     * Merges the runs lazily, each stream is closed as soon as it is exhausted.
+     */
+    private Cursor<T> merge(List<Path> inputs) throws IOException {
+        PriorityQueue<RunCursor<T>> queue = new PriorityQueue<>(Comparator.comparing(RunCursor::current, comparator));
+        for (Path input : inputs) {
+            var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(input)));
+            openStreams.add(in);
+            T first = read(in);
+            if (first != null) {
+                queue.add(new RunCursor<>(in, first));
+            } else {
+                closeStream(in);
+            }
+        }
+
+        return () -> {
+            RunCursor<T> cursor = queue.poll();
+            if (cursor == null) {
+                return null;
+            }
+            T next = read(cursor.in());
+            if (next != null) {
+                queue.add(new RunCursor<>(cursor.in(), next));
+            } else {
+                closeStream(cursor.in());
+            }
+            return cursor.current();
+        };
+    }
+
+    private void closeStream(DataInputStream in) throws IOException {
+        openStreams.remove(in);
+        in.close();
+    }
+
+    private DataOutputStream openRun(Path run) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)));
+    }
+
+    // Each value is preceded by a marker byte, so the end of a run is found without knowing its length
+    private void write(DataOutputStream out, T value) throws IOException {
+        out.writeByte(1);
+        codec.write(out, value);
+    }
+
+    private T read(DataInputStream in) throws IOException {
+        try {
+            in.readUnsignedByte();
+        } catch (EOFException e) {
+            return null;
+        }
+        return codec.read(in);
+    }
+}
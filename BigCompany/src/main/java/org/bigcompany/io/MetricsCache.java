@@ -0,0 +1,213 @@
+package org.bigcompany.io;
+
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.EmployeeResult;
+import org.bigcompany.model.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * On-disk cache of computed {@link Metrics}, keyed by the content of the input file and the active thresholds.
+ * <p>
+ * Entries are written to a temporary file and atomically renamed, so several processes can share
+ * the same directory: readers only ever see complete entries. The last modified time of an entry is
+ * refreshed on every hit, and the least recently used entries are removed once the directory grows
+ * over the maximum size.
+ */
+public class MetricsCache {
+    public static final long DEFAULT_MAX_SIZE_BYTES = 512L * 1024 * 1024;
+
+    private static final int FORMAT_MAGIC = 0x42434d43; // "BCMC"
+    private static final int FORMAT_VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".metrics";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Duration ABANDONED_TEMP_FILE_AGE = Duration.ofHours(1);
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    private final Path directory;
+    private final long maxSizeBytes;
+
+    public MetricsCache(Path directory) {
+        this(directory, DEFAULT_MAX_SIZE_BYTES);
+    }
+
+    public MetricsCache(Path directory, long maxSizeBytes) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * SHA-256 of the file content, the salary thresholds, the maximum depth and the cache format.
+     * The whole file is hashed on every call, streamed in blocks, so an edit is always noticed even when the size
+     * and last modified time are kept.
+     */
+    public String computeKey(Path inputFile) throws IOException {
+        MessageDigest digest = newDigest();
+        try (var channel = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        digest.update(settings().getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String settings() {
+        return String.join("|",
+                Employee.SALARY_PERCENTAGE_UPPER_LIMIT,
+                Employee.SALARY_PERCENTAGE_LOWER_LIMIT,
+                String.valueOf(Employee.MAXIMUM_MANAGERS_ALLOWED),
+                String.valueOf(FORMAT_VERSION));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Optional<Metrics> get(String key) {
+        Path entry = directory.resolve(key + ENTRY_SUFFIX);
+
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            if (in.readInt() != FORMAT_MAGIC || in.readInt() != FORMAT_VERSION) {
+                return Optional.empty();
+            }
+            var metrics = new Metrics(readResults(in), readResults(in), readResults(in));
+
+            touch(entry);
+            return Optional.of(metrics);
+        } catch (IOException e) {
+            // Missing, evicted meanwhile or unreadable entries are handled as a miss
+            return Optional.empty();
+        }
+    }
+
+    public void put(String key, Metrics metrics) throws IOException {
+        write(directory.resolve(key + ENTRY_SUFFIX), key, out -> {
+            out.writeInt(FORMAT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeResults(out, metrics.overpaidManagers());
+            writeResults(out, metrics.underpaidManagers());
+            writeResults(out, metrics.employeesFarFromCeo());
+        });
+
+        evict();
+    }
+
+    private interface EntryWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private void write(Path target, String key, EntryWriter writer) throws IOException {
+        Files.createDirectories(directory);
+
+        Path temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+        try {
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                writer.write(out);
+            }
+
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Removes the least recently used entries until the cache fits its maximum size.
+     * Entries may be removed concurrently by other processes, which is not an error.
+     */
+    void evict() throws IOException {
+        record Entry(Path path, long size, FileTime lastModified) {
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        long totalSize = 0;
+        Instant abandonedBefore = Instant.now().minus(ABANDONED_TEMP_FILE_AGE);
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                try {
+                    String name = path.getFileName().toString();
+                    FileTime lastModified = Files.getLastModifiedTime(path);
+                    if (name.endsWith(ENTRY_SUFFIX)) {
+                        long size = Files.size(path);
+                        entries.add(new Entry(path, size, lastModified));
+                        totalSize += size;
+                    } else if (name.endsWith(TEMP_SUFFIX) && lastModified.toInstant().isBefore(abandonedBefore)) {
+                        Files.deleteIfExists(path);
+                    }
+                } catch (NoSuchFileException e) {
+                    // Removed by another process
+                }
+            }
+        }
+
+        entries.sort(Comparator.comparing(Entry::lastModified));
+        for (Entry entry : entries) {
+            if (totalSize <= maxSizeBytes) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(entry.path());
+            } catch (IOException e) {
+                // Still open by a reader on some platforms, try again on the next eviction
+                continue;
+            }
+            totalSize -= entry.size();
+        }
+    }
+
+    private void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            // Evicted meanwhile, the result already read is still valid
+        }
+    }
+
+    private void writeResults(DataOutputStream out, List<EmployeeResult> results) throws IOException {
+        out.writeInt(results.size());
+        for (EmployeeResult result : results) {
+            EmployeeResultCodec.write(out, result);
+        }
+    }
+
+    private List<EmployeeResult> readResults(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<EmployeeResult> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            results.add(EmployeeResultCodec.read(in));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,71 @@
+package org.bigcompany.io;
+
+import org.bigcompany.model.MetricChange;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Changes found between two snapshots, grouped by type as they arrive.
+ * <p>
+ * Each change is formatted right away and appended to the temporary file of its type, so memory use does not grow
+ * with the number of changes. The files are read back one type at a time once every change was added.
+ */
+public class OrgDiffReport implements Closeable {
+    private final Path tempDirectory;
+    private final Path[] files = new Path[MetricChange.Type.values().length];
+    private final BufferedWriter[] writers = new BufferedWriter[files.length];
+    private final long[] counts = new long[files.length];
+
+    public OrgDiffReport() throws IOException {
+        this.tempDirectory = Files.createTempDirectory("bigcompany-diff");
+    }
+
+    public void add(MetricChange change) throws IOException {
+        int type = change.type().ordinal();
+        if (writers[type] == null) {
+            files[type] = Files.createTempFile(tempDirectory, change.type().name(), ".txt");
+            writers[type] = Files.newBufferedWriter(files[type], StandardCharsets.UTF_8);
+        }
+        writers[type].write(ResultsParser.formatChange(change));
+        writers[type].newLine();
+        counts[type]++;
+    }
+
+    public long getCount(MetricChange.Type type) {
+        return counts[type.ordinal()];
+    }
+
+    /**
+     * Hands every formatted change of the type to the consumer, in the order they were added.
+     */
+    public void forEachLine(MetricChange.Type type, Consumer<String> consumer) throws IOException {
+        int index = type.ordinal();
+        if (writers[index] == null) {
+            return;
+        }
+        writers[index].flush();
+        try (var reader = Files.newBufferedReader(files[index], StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                consumer.accept(line);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (int i = 0; i < files.length; i++) {
+            if (writers[i] != null) {
+                writers[i].close();
+                Files.deleteIfExists(files[i]);
+            }
+        }
+        Files.deleteIfExists(tempDirectory);
+    }
+}
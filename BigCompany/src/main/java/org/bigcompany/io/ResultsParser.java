@@ -1,10 +1,20 @@
 package org.bigcompany.io;
 
+import org.bigcompany.model.DistributionSummary;
+import org.bigcompany.model.EmployeeMetrics;
 import org.bigcompany.model.EmployeeResult;
+import org.bigcompany.model.LookupPage;
+import org.bigcompany.model.MetricChange;
+import org.bigcompany.model.MetricType;
 import org.bigcompany.model.Metrics;
+import org.bigcompany.model.OrgAnalytics;
 
+import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class ResultsParser {
 
@@ -14,9 +24,22 @@ public class ResultsParser {
     }
 
     public static void displayOnConsole(Metrics metrics) {
-        printEmployeesFarFromCeo(metrics);
-        printOverpaidAndUnderpaidManagers(metrics, ListType.OVERPAID);
-        printOverpaidAndUnderpaidManagers(metrics, ListType.UNDERPAID);
+        displayOnConsole(metrics, EnumSet.allOf(MetricType.class));
+    }
+
+    /**
+     * Only prints the lists that were requested, the others are empty because they were not computed.
+     */
+    public static void displayOnConsole(Metrics metrics, Set<MetricType> metricTypes) {
+        if (metricTypes.contains(MetricType.EMPLOYEES_FAR_FROM_CEO)) {
+            printEmployeesFarFromCeo(metrics);
+        }
+        if (metricTypes.contains(MetricType.OVERPAID_MANAGERS)) {
+            printOverpaidAndUnderpaidManagers(metrics, ListType.OVERPAID);
+        }
+        if (metricTypes.contains(MetricType.UNDERPAID_MANAGERS)) {
+            printOverpaidAndUnderpaidManagers(metrics, ListType.UNDERPAID);
+        }
     }
 
     private static void printEmployeesFarFromCeo(Metrics metrics) {
@@ -75,4 +98,115 @@ public class ResultsParser {
         System.out.println();
     }
 
+    public static void displayOnConsole(OrgDiffReport report) throws IOException {
+        for (var type : MetricChange.Type.values()) {
+            printChanges(report, type);
+        }
+    }
+
+    private static void printChanges(OrgDiffReport report, MetricChange.Type type) throws IOException {
+        long count = report.getCount(type);
+
+        String description = switch (type) {
+            case BECAME_OVERPAID -> "employees who became overpaid";
+            case NO_LONGER_OVERPAID -> "employees no longer overpaid";
+            case BECAME_UNDERPAID -> "employees who became underpaid";
+            case NO_LONGER_UNDERPAID -> "employees no longer underpaid";
+            case BECAME_FAR_FROM_CEO -> "employees who became too far from CEO";
+            case NO_LONGER_FAR_FROM_CEO -> "employees no longer too far from CEO";
+            case AVERAGE_SALARY_CHANGED -> "managers whose direct subordinates average salary changed";
+        };
+
+        String valueDescription = switch (type) {
+            case BECAME_OVERPAID, NO_LONGER_OVERPAID, BECAME_UNDERPAID, NO_LONGER_UNDERPAID ->
+                    "Difference from expected pay";
+            case BECAME_FAR_FROM_CEO, NO_LONGER_FAR_FROM_CEO -> "Managers to CEO";
+            case AVERAGE_SALARY_CHANGED -> "Direct subordinates average salary";
+        };
+
+        System.out.println(MessageFormat.format("Total {0}: {1}", description, count));
+        if (count > 0) {
+            System.out.println(MessageFormat.format("Id, First name, Last name, {0} before, {0} after", valueDescription));
+            report.forEachLine(type, System.out::println);
+        }
+        System.out.println();
+    }
+
+    static String formatChange(MetricChange change) {
+        return MessageFormat.format("{0}, {1}, {2}, {3}, {4}",
+                change.id(),
+                change.firstName(),
+                change.lastName(),
+                formatChangeValue(change.type(), change.before()),
+                formatChangeValue(change.type(), change.after())
+        );
+    }
+
+    private static Object formatChangeValue(MetricChange.Type type, EmployeeMetrics employee) {
+        if (employee == null) {
+            return "-";
+        }
+
+        Object value = switch (type) {
+            case BECAME_OVERPAID, NO_LONGER_OVERPAID, BECAME_UNDERPAID, NO_LONGER_UNDERPAID ->
+                    employee.differenceFromExpectedPay();
+            case BECAME_FAR_FROM_CEO, NO_LONGER_FAR_FROM_CEO -> employee.totalManagersToCeo();
+            case AVERAGE_SALARY_CHANGED -> employee.directSubordinatesAverageSalary();
+        };
+
+        return value == null ? "-" : value;
+    }
+
+    public static void displayOnConsole(LookupPage page) {
+        System.out.println(MessageFormat.format(
+                "Total matches: {0}, showing {1} to {2}",
+                page.totalMatches(),
+                page.employees().isEmpty() ? 0 : page.offset() + 1,
+                page.offset() + page.employees().size()));
+        if (!page.employees().isEmpty()) {
+            System.out.println("Id, First name, Last name, Salary, Manager id, Managers to CEO, Overpaid, Underpaid, Far from CEO");
+            for (var employee : page.employees()) {
+                System.out.println(
+                        MessageFormat.format("{0}, {1}, {2}, {3}, {4}, {5}, {6}, {7}, {8}",
+                                employee.id(),
+                                employee.firstName(),
+                                employee.lastName(),
+                                employee.salary(),
+                                employee.managerId() == null ? "-" : employee.managerId(),
+                                employee.totalManagersToCeo(),
+                                employee.overpaid(),
+                                employee.underpaid(),
+                                employee.farFromCeo()
+                        )
+                );
+            }
+        }
+        System.out.println();
+    }
+
+    public static void displayOnConsole(OrgAnalytics analytics) {
+        printDistributions("Salary by level", "Level", analytics.salaryByLevel());
+        printDistributions("Salary by division", "Division head id", analytics.salaryByDivision());
+        printDistributions("Span of control by level", "Level", analytics.spanOfControlByLevel());
+        printDistributions("Span of control", "Scope", Map.of("Company", analytics.spanOfControl()));
+    }
+
+    private static void printDistributions(String title, String keyDescription, Map<?, DistributionSummary> summaries) {
+        System.out.println(MessageFormat.format("{0}:", title));
+        System.out.println(MessageFormat.format("{0}, Count, Min, p50, p90, p99, Max", keyDescription));
+        summaries.forEach((key, summary) -> System.out.println(
+                MessageFormat.format("{0}, {1}, {2,number,#.##}, {3,number,#.##}, {4,number,#.##}, {5,number,#.##}, {6,number,#.##}",
+                        // Plain text, so neither is printed with grouping separators inside the comma-separated columns
+                        String.valueOf(key),
+                        String.valueOf(summary.count()),
+                        summary.min(),
+                        summary.p50(),
+                        summary.p90(),
+                        summary.p99(),
+                        summary.max()
+                )
+        ));
+        System.out.println();
+    }
+
 }
@@ -0,0 +1,90 @@
+package org.bigcompany.io;
+
+import org.bigcompany.model.EmployeeMetrics;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorts the metrics of every employee of a snapshot by id, holding at most a fixed number of them in memory
+ * with an {@link ExternalSorter}, so that two snapshots can be joined with a sorted merge.
+ * Ids are compared with {@link String#compareTo(String)}.
+ */
+public class SnapshotSorter implements Closeable {
+    public static final int DEFAULT_MAX_EMPLOYEES_IN_MEMORY = 500_000;
+
+    private static final ExternalSorter.Codec<EmployeeMetrics> CODEC = new ExternalSorter.Codec<>() {
+        @Override
+        public void write(DataOutputStream out, EmployeeMetrics employee) throws IOException {
+            EmployeeMetricsCodec.write(out, employee);
+        }
+
+        @Override
+        public EmployeeMetrics read(DataInputStream in) throws IOException {
+            return EmployeeMetricsCodec.read(in);
+        }
+    };
+
+    private final ExternalSorter<EmployeeMetrics> sorter;
+
+    public SnapshotSorter() throws IOException {
+        this(DEFAULT_MAX_EMPLOYEES_IN_MEMORY, SortedResultsExporter.DEFAULT_MERGE_FAN_IN);
+    }
+
+    SnapshotSorter(int maxEmployeesInMemory, int mergeFanIn) throws IOException {
+        this.sorter = new ExternalSorter<>(Comparator.comparing(EmployeeMetrics::id), CODEC,
+                maxEmployeesInMemory, mergeFanIn, "bigcompany-snapshot");
+    }
+
+    public void add(EmployeeMetrics employee) throws IOException {
+        sorter.add(employee);
+    }
+
+    /**
+     * Every employee added, by id. Can only be called once, and read errors are thrown as {@link UncheckedIOException}.
+     */
+    public Iterator<EmployeeMetrics> sortedById() throws IOException {
+        ExternalSorter.Cursor<EmployeeMetrics> cursor = sorter.sorted();
+        return new Iterator<>() {
+            private EmployeeMetrics next = read();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public EmployeeMetrics next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                EmployeeMetrics current = next;
+                next = read();
+                return current;
+            }
+
+            private EmployeeMetrics read() {
+                try {
+                    return cursor.next();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    int getRunCount() {
+        return sorter.getRunCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        sorter.close();
+    }
+}
@@ -0,0 +1,182 @@
+package org.bigcompany.io;
+
+import org.bigcompany.model.EmployeeMetrics;
+import org.bigcompany.model.EmployeeResult;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.Comparator;
+
+/**
+ * Writes the flagged employees to a CSV report sorted by category and then by the chosen order,
+ * holding at most a fixed number of results in memory with an {@link ExternalSorter}.
+ */
+public class SortedResultsExporter implements Closeable {
+    public static final int DEFAULT_MAX_RESULTS_IN_MEMORY = 1_000_000;
+    static final int DEFAULT_MERGE_FAN_IN = 64;
+
+    public enum Category {
+        FAR_FROM_CEO,
+        OVERPAID,
+        UNDERPAID
+    }
+
+    public enum SortOrder {
+        ID,
+        DIFFERENCE_FROM_EXPECTED_PAY,
+        DISTANCE_TO_CEO
+    }
+
+    private record Row(Category category, EmployeeResult result) {
+    }
+
+    private static final ExternalSorter.Codec<Row> ROW_CODEC = new ExternalSorter.Codec<>() {
+        @Override
+        public void write(DataOutputStream out, Row row) throws IOException {
+            out.writeByte(row.category().ordinal());
+            EmployeeResultCodec.write(out, row.result());
+        }
+
+        @Override
+        public Row read(DataInputStream in) throws IOException {
+            return new Row(Category.values()[in.readUnsignedByte()], EmployeeResultCodec.read(in));
+        }
+    };
+
+    private final ExternalSorter<Row> sorter;
+
+    public SortedResultsExporter(SortOrder sortOrder, int maxResultsInMemory) throws IOException {
+        this(sortOrder, maxResultsInMemory, DEFAULT_MERGE_FAN_IN);
+    }
+
+    SortedResultsExporter(SortOrder sortOrder, int maxResultsInMemory, int mergeFanIn) throws IOException {
+        if (maxResultsInMemory < 1 || mergeFanIn < 2) {
+            throw new IllegalArgumentException("Invalid memory settings for export");
+        }
+        Comparator<Row> comparator = Comparator.comparing(Row::category).thenComparing(Row::result, resultComparator(sortOrder));
+        this.sorter = new ExternalSorter<>(comparator, ROW_CODEC, maxResultsInMemory, mergeFanIn, "bigcompany-export");
+    }
+
+    /**
+     * Adds one row for each list the employee belongs to. Employees that are not flagged are ignored.
+     */
+    public void add(EmployeeMetrics employee) throws IOException {
+        if (!employee.farFromCeo() && !employee.overpaid() && !employee.underpaid()) {
+            return;
+        }
+
+        var result = new EmployeeResult(
+                employee.id(),
+                employee.firstName(),
+                employee.lastName(),
+                employee.salary(),
+                employee.managerId(),
+                employee.differenceFromExpectedPay(),
+                employee.totalManagersToCeo());
+
+        if (employee.farFromCeo()) {
+            sorter.add(new Row(Category.FAR_FROM_CEO, result));
+        }
+        if (employee.overpaid()) {
+            sorter.add(new Row(Category.OVERPAID, result));
+        } else if (employee.underpaid()) {
+            sorter.add(new Row(Category.UNDERPAID, result));
+        }
+    }
+
+    public void writeTo(Path output) throws IOException {
+        try (var writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write("Category,Id,First name,Last name,Salary,Manager id,Difference from expected pay,Managers to CEO");
+            writer.newLine();
+
+            ExternalSorter.Cursor<Row> rows = sorter.sorted();
+            for (Row row = rows.next(); row != null; row = rows.next()) {
+                writeCsvRow(writer, row);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sorter.close();
+    }
+
+    int getRunCount() {
+        return sorter.getRunCount();
+    }
+
+    private void writeCsvRow(BufferedWriter writer, Row row) throws IOException {
+        var result = row.result();
+        writer.write(MessageFormat.format("{0},{1},{2},{3},{4},{5},{6},{7}",
+                row.category(),
+                result.id(),
+                result.firstName(),
+                result.lastName(),
+                result.salary() == null ? "" : result.salary().toPlainString(),
+                result.managerId() == null ? "" : result.managerId(),
+                result.differenceFromExpectedPay() == null ? "" : result.differenceFromExpectedPay().toPlainString(),
+                String.valueOf(result.totalManagersToCeo())));
+        writer.newLine();
+    }
+
+    private static Comparator<EmployeeResult> resultComparator(SortOrder sortOrder) {
+        Comparator<EmployeeResult> byId = Comparator.comparing(EmployeeResult::id, SortedResultsExporter::compareIds);
+
+        return switch (sortOrder) {
+            case ID -> byId;
+            case DIFFERENCE_FROM_EXPECTED_PAY -> Comparator.comparing(EmployeeResult::differenceFromExpectedPay,
+                    Comparator.nullsFirst(Comparator.<BigDecimal>naturalOrder())).thenComparing(byId);
+            case DISTANCE_TO_CEO -> Comparator.comparingInt(EmployeeResult::totalManagersToCeo).thenComparing(byId);
+        };
+    }
+
+    /**
+     * Numeric ids are compared by value, so that 99 comes before 123, and come before any other id.
+     * Other ids are compared as text.
+     */
+    static int compareIds(String left, String right) {
+        boolean leftNumeric = isNumeric(left);
+        boolean rightNumeric = isNumeric(right);
+        if (leftNumeric != rightNumeric) {
+            return leftNumeric ? -1 : 1;
+        }
+        if (leftNumeric) {
+            String leftDigits = stripLeadingZeros(left);
+            String rightDigits = stripLeadingZeros(right);
+            if (leftDigits.length() != rightDigits.length()) {
+                return Integer.compare(leftDigits.length(), rightDigits.length());
+            }
+            int comparison = leftDigits.compareTo(rightDigits);
+            return comparison != 0 ? comparison : left.compareTo(right);
+        }
+        return left.compareTo(right);
+    }
+
+    private static boolean isNumeric(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String stripLeadingZeros(String value) {
+        int start = 0;
+        while (start < value.length() - 1 && value.charAt(start) == '0') {
+            start++;
+        }
+        return value.substring(start);
+    }
+}
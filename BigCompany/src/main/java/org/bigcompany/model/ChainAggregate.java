@@ -0,0 +1,17 @@
+package org.bigcompany.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Salaries of the managers above one employee, up to and including the CEO. The employee is not part of the chain,
+ * so the CEO has a zero total and a null maximum. {@code salaryInverted} is set when a manager in the chain earns
+ * more than someone above them.
+ */
+public record ChainAggregate(
+        String id,
+        int totalManagersToCeo,
+        BigDecimal chainTotalSalary,
+        BigDecimal chainMaxSalary,
+        boolean salaryInverted
+    ) {
+}
@@ -0,0 +1,14 @@
+package org.bigcompany.model;
+
+/**
+ * Percentiles are estimates with a bounded relative error, minimum and maximum are exact.
+ */
+public record DistributionSummary(
+        long count,
+        double min,
+        double p50,
+        double p90,
+        double p99,
+        double max
+    ) {
+}
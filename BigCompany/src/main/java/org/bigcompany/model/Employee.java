@@ -5,10 +5,17 @@ import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * An employee linked to its manager and direct subordinates.
+ * <p>
+ * The hierarchy is not immutable: the setters stay public for parsers and for {@link org.bigcompany.service.IncrementalAnalysis},
+ * which keeps linking employees as they arrive. Once a hierarchy is handed to an analysis it is read-only by convention
+ * only, and must not be modified while it is being analysed.
+ */
 public class Employee {
-    static final String SALARY_PERCENTAGE_UPPER_LIMIT = "1.5";
-    static final String SALARY_PERCENTAGE_LOWER_LIMIT = "1.2";
-    static final int MAXIMUM_MANAGERS_ALLOWED = 4;
+    public static final String SALARY_PERCENTAGE_UPPER_LIMIT = "1.5";
+    public static final String SALARY_PERCENTAGE_LOWER_LIMIT = "1.2";
+    public static final int MAXIMUM_MANAGERS_ALLOWED = 4;
 
 
     private Employee manager;
@@ -18,16 +25,17 @@ public class Employee {
     private String firstName;
     private String lastName;
     private BigDecimal salary;
+    private long salaryInCents = -1;
     private String managerId;
-
-    private Integer totalPeopleBelowPlusSelf;
-    private BigDecimal totalSalariesBelowPlusSelf;
-    private Integer totalPeopleAbove;
-
-    private BigDecimal averageDirectSubordinateSalary;
+    private SubordinatesSummary unloadedSubordinates;
+    private long unloadedSubordinatesSalaryInCents;
 
     // Getters and setters
 
+    public Employee getManager() {
+        return manager;
+    }
+
     public void setManager(Employee manager) {
         this.manager = manager;
     }
@@ -77,6 +85,51 @@ public class Employee {
 
     public void setSalary(BigDecimal salary) {
         this.salary = salary;
+        this.salaryInCents = toCents(salary);
+    }
+
+    /**
+     * Salary as a whole amount of cents, or -1 when it is negative or written with more than 2 decimal places,
+     * even trailing zeros, since the results computed from it would then have a different scale.
+     */
+    public long getSalaryInCents() {
+        return salaryInCents;
+    }
+
+    private static long toCents(BigDecimal salary) {
+        if (salary == null || salary.signum() < 0 || salary.scale() > 2) {
+            return -1;
+        }
+        try {
+            return salary.movePointRight(2).longValueExact();
+        } catch (ArithmeticException ex) {
+            return -1;
+        }
+    }
+
+    public SubordinatesSummary getUnloadedSubordinates() {
+        return unloadedSubordinates;
+    }
+
+    /**
+     * Direct subordinates that are not loaded, such as the ones in another shard. They are only counted
+     * in the direct subordinates average salary.
+     */
+    public void setUnloadedSubordinates(SubordinatesSummary unloadedSubordinates) {
+        this.unloadedSubordinates = unloadedSubordinates;
+        this.unloadedSubordinatesSalaryInCents = unloadedSubordinates == null ? 0 : toCents(unloadedSubordinates.totalSalary());
+    }
+
+    /**
+     * Total salary of the unloaded direct subordinates as cents, 0 when there are none and -1 when it can not be
+     * represented, same as {@link #getSalaryInCents()}.
+     */
+    public long getUnloadedSubordinatesSalaryInCents() {
+        return unloadedSubordinatesSalaryInCents;
+    }
+
+    public int getUnloadedSubordinatesCount() {
+        return unloadedSubordinates == null ? 0 : unloadedSubordinates.count();
     }
 
     public String getManagerId() {
@@ -87,27 +140,26 @@ public class Employee {
         this.managerId = managerId;
     }
 
-    // Compute expected salaries and distance from CEO
+    // Compute expected salaries and distance from CEO.
+    // Nothing is cached, so a loaded hierarchy can be read by several threads at once.
 
     public BigDecimal getDirectSubortinatesAverageSalary() {
-        if (averageDirectSubordinateSalary != null) {
-            return averageDirectSubordinateSalary;
-        }
-
-        if (subordinates == null || subordinates.size() == 0) {
+        int loadedSubordinates = subordinates == null ? 0 : subordinates.size();
+        if (loadedSubordinates + getUnloadedSubordinatesCount() == 0) {
             return null;
         }
 
-        BigDecimal directSalariesBelow = subordinates.stream()
+        BigDecimal directSalariesBelow = loadedSubordinates == 0 ? BigDecimal.ZERO : subordinates.stream()
                 .map(x -> x.getSalary())
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (unloadedSubordinates != null) {
+            directSalariesBelow = directSalariesBelow.add(unloadedSubordinates.totalSalary());
+        }
 
-        BigDecimal directPeopleBelow = new BigDecimal(subordinates.size());
+        BigDecimal directPeopleBelow = new BigDecimal(loadedSubordinates + getUnloadedSubordinatesCount());
 
         // Specify scale and rounding mode
-        averageDirectSubordinateSalary = directSalariesBelow.divide(directPeopleBelow, 2, RoundingMode.HALF_UP); // 2 decimal places
-
-        return averageDirectSubordinateSalary;
+        return directSalariesBelow.divide(directPeopleBelow, 2, RoundingMode.HALF_UP); // 2 decimal places
     }
 
     public boolean isOverPaid() {
@@ -131,7 +183,10 @@ public class Employee {
     }
 
     private BigDecimal getMaximumAcceptedSalary() {
-        BigDecimal directSubortinatesAverageSalary = getDirectSubortinatesAverageSalary();
+        return getMaximumAcceptedSalary(getDirectSubortinatesAverageSalary());
+    }
+
+    private BigDecimal getMaximumAcceptedSalary(BigDecimal directSubortinatesAverageSalary) {
         if (directSubortinatesAverageSalary == null) {
             return null;
         }
@@ -160,7 +215,10 @@ public class Employee {
     }
 
     private BigDecimal getMinimumAcceptedSalary() {
-        BigDecimal directSubortinatesAverageSalary = getDirectSubortinatesAverageSalary();
+        return getMinimumAcceptedSalary(getDirectSubortinatesAverageSalary());
+    }
+
+    private BigDecimal getMinimumAcceptedSalary(BigDecimal directSubortinatesAverageSalary) {
         if (directSubortinatesAverageSalary == null) {
             return null;
         }
@@ -168,20 +226,46 @@ public class Employee {
         return directSubortinatesAverageSalary.multiply(new BigDecimal(SALARY_PERCENTAGE_LOWER_LIMIT));
     }
 
-    public Integer getTotalPeopleAbove() {
-        if (totalPeopleAbove == null) {
-            totalPeopleAbove = 0;
+    /**
+     * Overpaid amount when positive, underpaid amount when negative and zero otherwise, for an average salary
+     * of the direct subordinates that was already computed, so the subordinates are only summed up once.
+     */
+    public BigDecimal getDifferenceFromExpectedPay(BigDecimal directSubortinatesAverageSalary) {
+        if (directSubortinatesAverageSalary == null) {
+            return BigDecimal.ZERO;
+        }
+
+        BigDecimal maximumAcceptedSalary = getMaximumAcceptedSalary(directSubortinatesAverageSalary);
+        if (salary.compareTo(maximumAcceptedSalary) > 0) {
+            return salary.subtract(maximumAcceptedSalary);
+        }
+
+        BigDecimal minimumAcceptedSalary = getMinimumAcceptedSalary(directSubortinatesAverageSalary);
+        if (salary.compareTo(minimumAcceptedSalary) < 0) {
+            return salary.subtract(minimumAcceptedSalary);
+        }
+
+        return BigDecimal.ZERO;
+    }
 
-            if (manager != null) {
-                totalPeopleAbove = 1 + manager.getTotalPeopleAbove();
-            }
+    /**
+     * Walks up the chain of managers. Analyses over the whole hierarchy count the depth while traversing it instead.
+     */
+    public Integer getTotalPeopleAbove() {
+        int totalPeopleAbove = 0;
+        for (Employee above = manager; above != null; above = above.manager) {
+            totalPeopleAbove++;
         }
 
         return totalPeopleAbove;
     }
 
     public boolean isFarFromCeo() {
-        return getTotalPeopleAbove() > MAXIMUM_MANAGERS_ALLOWED + 1; // Managers + CEO
+        return isFarFromCeo(getTotalPeopleAbove());
+    }
+
+    public static boolean isFarFromCeo(int totalPeopleAbove) {
+        return totalPeopleAbove > MAXIMUM_MANAGERS_ALLOWED + 1; // Managers + CEO
     }
 
     public int getDistanceToCeo() {
@@ -191,19 +275,15 @@ public class Employee {
     // Methods below are NOT used for final result. Kept here for didactic purposes.
 
     public Integer getTotalPeopleBelowPlusSelf() {
-        if (totalPeopleBelowPlusSelf == null) {
-            int totalPeopleBelow = 0;
+        int totalPeopleBelow = 0;
 
-            if (subordinates != null) {
-                totalPeopleBelow = subordinates.parallelStream()
-                        .mapToInt(Employee::getTotalPeopleBelowPlusSelf)
-                        .sum();
-            }
-
-            totalPeopleBelowPlusSelf = totalPeopleBelow + 1;
+        if (subordinates != null) {
+            totalPeopleBelow = subordinates.parallelStream()
+                    .mapToInt(Employee::getTotalPeopleBelowPlusSelf)
+                    .sum();
         }
 
-        return totalPeopleBelowPlusSelf;
+        return totalPeopleBelow + 1;
     }
 
     private Integer getTotalPeopleBelow(){
@@ -211,19 +291,15 @@ public class Employee {
     }
 
     public BigDecimal getTotalSalariesBelowPlusSelf() {
-        if (totalSalariesBelowPlusSelf == null) {
-            BigDecimal totalSalariesBelow = BigDecimal.ZERO;
-
-            if (subordinates != null) {
-                totalSalariesBelow = subordinates.parallelStream()
-                        .map(Employee::getTotalSalariesBelowPlusSelf)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-            }
+        BigDecimal totalSalariesBelow = BigDecimal.ZERO;
 
-            totalSalariesBelowPlusSelf = totalSalariesBelow.add(salary);
+        if (subordinates != null) {
+            totalSalariesBelow = subordinates.parallelStream()
+                    .map(Employee::getTotalSalariesBelowPlusSelf)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
         }
 
-        return totalSalariesBelowPlusSelf;
+        return totalSalariesBelow.add(salary);
     }
 
     private BigDecimal getTotalSalariesBelow() {
@@ -231,12 +307,13 @@ public class Employee {
     }
 
     public BigDecimal getTotalSubortinatesAverageSalary() {
-        if (getTotalPeopleBelow() == 0) {
+        int totalPeopleBelow = getTotalPeopleBelow();
+        if (totalPeopleBelow == 0) {
             return null;
         }
 
         BigDecimal totalSalaries = getTotalSalariesBelow();
-        BigDecimal totalPeople = new BigDecimal(getTotalPeopleBelow());
+        BigDecimal totalPeople = new BigDecimal(totalPeopleBelow);
 
         // Specify scale and rounding mode
         return totalSalaries.divide(totalPeople, 2, RoundingMode.HALF_UP); // 2 decimal places
@@ -0,0 +1,22 @@
+package org.bigcompany.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Every metric computed for a single employee, flagged or not.
+ * The CEO is included with -1 managers to CEO, same as {@link Employee#getDistanceToCeo()}, but is never flagged.
+ */
+public record EmployeeMetrics(
+        String id,
+        String firstName,
+        String lastName,
+        BigDecimal salary,
+        String managerId,
+        BigDecimal directSubordinatesAverageSalary,
+        BigDecimal differenceFromExpectedPay,
+        int totalManagersToCeo,
+        boolean overpaid,
+        boolean underpaid,
+        boolean farFromCeo
+    ) {
+}
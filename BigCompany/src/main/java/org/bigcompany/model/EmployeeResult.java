@@ -2,6 +2,11 @@ package org.bigcompany.model;
 
 import java.math.BigDecimal;
 
+/**
+ * When only some metrics are requested, the values that were not needed are left out:
+ * {@code salary} and {@code differenceFromExpectedPay} are null when salaries were not checked,
+ * and {@code totalManagersToCeo} is {@link #MANAGERS_TO_CEO_NOT_COMPUTED} when the distance to the CEO was not.
+ */
 public record EmployeeResult(
         String id,
         String firstName,
@@ -11,4 +16,6 @@ public record EmployeeResult(
         BigDecimal differenceFromExpectedPay,
         int totalManagersToCeo
     ) {
+
+    public static final int MANAGERS_TO_CEO_NOT_COMPUTED = -1;
 }
@@ -0,0 +1,14 @@
+package org.bigcompany.model;
+
+import java.util.List;
+
+/**
+ * One page of the employees matching a search, along with the number of matches over all pages.
+ */
+public record LookupPage(
+        List<EmployeeMetrics> employees,
+        int totalMatches,
+        int offset,
+        int limit
+    ) {
+}
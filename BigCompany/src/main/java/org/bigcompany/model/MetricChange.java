@@ -0,0 +1,25 @@
+package org.bigcompany.model;
+
+/**
+ * A metric transition of one employee between two snapshots.
+ * {@code before} is null for employees who joined, {@code after} is null for employees who left.
+ */
+public record MetricChange(
+        Type type,
+        String id,
+        String firstName,
+        String lastName,
+        EmployeeMetrics before,
+        EmployeeMetrics after
+    ) {
+
+    public enum Type {
+        BECAME_OVERPAID,
+        NO_LONGER_OVERPAID,
+        BECAME_UNDERPAID,
+        NO_LONGER_UNDERPAID,
+        BECAME_FAR_FROM_CEO,
+        NO_LONGER_FAR_FROM_CEO,
+        AVERAGE_SALARY_CHANGED
+    }
+}
@@ -0,0 +1,10 @@
+package org.bigcompany.model;
+
+/**
+ * The lists of {@link Metrics} that can be requested on their own.
+ */
+public enum MetricType {
+    OVERPAID_MANAGERS,
+    UNDERPAID_MANAGERS,
+    EMPLOYEES_FAR_FROM_CEO
+}
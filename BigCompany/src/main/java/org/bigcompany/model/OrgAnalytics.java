@@ -0,0 +1,18 @@
+package org.bigcompany.model;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Salary and span of control distributions.
+ * Levels count the managers above each employee, so the CEO is on level 0.
+ * Divisions are the subtrees of the CEO direct subordinates, keyed by the id of the division head.
+ * Span of control is the number of direct subordinates of each manager.
+ */
+public record OrgAnalytics(
+        SortedMap<Integer, DistributionSummary> salaryByLevel,
+        Map<String, DistributionSummary> salaryByDivision,
+        SortedMap<Integer, DistributionSummary> spanOfControlByLevel,
+        DistributionSummary spanOfControl
+        ) {
+}
@@ -0,0 +1,14 @@
+package org.bigcompany.model;
+
+import java.util.List;
+
+public record OrgDiff(
+        List<MetricChange> changes
+        ) {
+
+    public List<MetricChange> changesOfType(MetricChange.Type type) {
+        return changes.stream()
+                .filter(change -> change.type() == type)
+                .toList();
+    }
+}
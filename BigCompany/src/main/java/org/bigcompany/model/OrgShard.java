@@ -0,0 +1,18 @@
+package org.bigcompany.model;
+
+import java.util.Map;
+
+/**
+ * A part of the organisation that can be processed on its own.
+ * <p>
+ * The shard file only holds the rows of its members. Members with direct subordinates in other shards are mapped to
+ * a summary of those subordinates, needed only for their average salary. Each root is a member whose manager
+ * is not in the shard, mapped to the number of people above it, so the distance to the CEO is kept.
+ */
+public record OrgShard(
+        String filePath,
+        int memberCount,
+        Map<String, Integer> rootTotalPeopleAbove,
+        Map<String, SubordinatesSummary> unloadedSubordinates
+        ) {
+}
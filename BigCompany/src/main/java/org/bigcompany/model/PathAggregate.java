@@ -0,0 +1,16 @@
+package org.bigcompany.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Salaries along the reporting path between two employees, both included, through their lowest common manager.
+ */
+public record PathAggregate(
+        String fromId,
+        String toId,
+        String commonManagerId,
+        int length,
+        BigDecimal totalSalary,
+        BigDecimal maxSalary
+    ) {
+}
@@ -0,0 +1,17 @@
+package org.bigcompany.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Total salary and number of direct subordinates of a manager that are not loaded with it,
+ * such as the ones in another shard.
+ */
+public record SubordinatesSummary(
+        BigDecimal totalSalary,
+        int count
+    ) {
+
+    public SubordinatesSummary add(SubordinatesSummary other) {
+        return new SubordinatesSummary(totalSalary.add(other.totalSalary()), count + other.count());
+    }
+}
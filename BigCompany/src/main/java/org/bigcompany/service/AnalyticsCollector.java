@@ -0,0 +1,72 @@
+package org.bigcompany.service;
+
+import org.bigcompany.model.DistributionSummary;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.OrgAnalytics;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Partial distributions collected by a single worker. Collectors of disjoint parts of the hierarchy are merged.
+ */
+final class AnalyticsCollector {
+    private final Map<Integer, QuantileSketch> salaryByLevel = new HashMap<>();
+    private final Map<String, QuantileSketch> salaryByDivision = new LinkedHashMap<>();
+    private final Map<Integer, QuantileSketch> spanOfControlByLevel = new HashMap<>();
+    private final QuantileSketch spanOfControl = new QuantileSketch();
+
+    void add(Employee employee, int level, String divisionId) {
+        double salary = employee.getSalary().doubleValue();
+        salaryByLevel.computeIfAbsent(level, key -> new QuantileSketch()).add(salary);
+        if (divisionId != null) {
+            salaryByDivision.computeIfAbsent(divisionId, key -> new QuantileSketch()).add(salary);
+        }
+
+        if (employee.getSubordinates() != null && !employee.getSubordinates().isEmpty()) {
+            int directSubordinates = employee.getSubordinates().size();
+            spanOfControlByLevel.computeIfAbsent(level, key -> new QuantileSketch()).add(directSubordinates);
+            spanOfControl.add(directSubordinates);
+        }
+    }
+
+    void merge(AnalyticsCollector other) {
+        other.salaryByLevel.forEach((level, sketch) ->
+                salaryByLevel.computeIfAbsent(level, key -> new QuantileSketch()).merge(sketch));
+        other.salaryByDivision.forEach((division, sketch) ->
+                salaryByDivision.computeIfAbsent(division, key -> new QuantileSketch()).merge(sketch));
+        other.spanOfControlByLevel.forEach((level, sketch) ->
+                spanOfControlByLevel.computeIfAbsent(level, key -> new QuantileSketch()).merge(sketch));
+        spanOfControl.merge(other.spanOfControl);
+    }
+
+    OrgAnalytics toAnalytics() {
+        Map<String, DistributionSummary> divisions = new LinkedHashMap<>();
+        salaryByDivision.forEach((division, sketch) -> divisions.put(division, summarize(sketch)));
+
+        return new OrgAnalytics(
+                summarize(salaryByLevel),
+                divisions,
+                summarize(spanOfControlByLevel),
+                summarize(spanOfControl));
+    }
+
+    private static SortedMap<Integer, DistributionSummary> summarize(Map<Integer, QuantileSketch> sketches) {
+        SortedMap<Integer, DistributionSummary> summaries = new TreeMap<>();
+        sketches.forEach((level, sketch) -> summaries.put(level, summarize(sketch)));
+        return summaries;
+    }
+
+    private static DistributionSummary summarize(QuantileSketch sketch) {
+        return new DistributionSummary(
+                sketch.getCount(),
+                sketch.getMin(),
+                sketch.getQuantile(0.5),
+                sketch.getQuantile(0.9),
+                sketch.getQuantile(0.99),
+                sketch.getMax());
+    }
+}
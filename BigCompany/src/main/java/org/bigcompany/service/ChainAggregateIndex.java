@@ -0,0 +1,188 @@
+package org.bigcompany.service;
+
+import org.bigcompany.exceptions.EmployeeNotFoundException;
+import org.bigcompany.model.ChainAggregate;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.PathAggregate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Salary totals and maximums along reporting chains.
+ * <p>
+ * A single top-down pass computes, for every employee, the total and maximum salary of the managers above them and
+ * whether one of those managers earns more than someone higher up. Checking each manager against their own manager
+ * is enough for the latter, as a chain without such a pair never decreases going up.
+ * <p>
+ * Queries between any two employees use binary lifting: the ancestor 2^k levels up and the best paid employee
+ * on the way are kept for each level, so the lowest common manager and the path maximum are found in O(log depth).
+ * Path totals come from the salary totals from the CEO down to each employee.
+ */
+public class ChainAggregateIndex {
+    private static final int NIL = -1;
+
+    private final List<Employee> employees = new ArrayList<>();
+    private final Map<String, Integer> indexById = new HashMap<>();
+    private final int[] totalPeopleAbove;
+    // Salaries from the CEO down to each employee, both included
+    private final BigDecimal[] totalSalaryFromCeo;
+    private final int[] chainMax;
+    private final boolean[] salaryInverted;
+
+    // ancestors[k][i] is 2^k levels above employee i, and bestPaid[k][i] is the best paid of the 2^k employees
+    // from i up to just below that ancestor
+    private final int[][] ancestors;
+    private final int[][] bestPaid;
+
+    public ChainAggregateIndex(Employee ceo) {
+        List<Integer> managers = new ArrayList<>();
+        employees.add(ceo);
+        managers.add(NIL);
+        indexById.put(ceo.getId(), 0);
+        for (int head = 0; head < employees.size(); head++) {
+            List<Employee> subordinates = employees.get(head).getSubordinates();
+            if (subordinates != null) {
+                for (Employee subordinate : subordinates) {
+                    indexById.put(subordinate.getId(), employees.size());
+                    employees.add(subordinate);
+                    managers.add(head);
+                }
+            }
+        }
+
+        int count = employees.size();
+        totalPeopleAbove = new int[count];
+        totalSalaryFromCeo = new BigDecimal[count];
+        chainMax = new int[count];
+        salaryInverted = new boolean[count];
+
+        // Breadth-first order, so every manager is done before their subordinates
+        int maxDepth = 0;
+        totalSalaryFromCeo[0] = ceo.getSalary();
+        chainMax[0] = NIL;
+        for (int i = 1; i < count; i++) {
+            int manager = managers.get(i);
+            totalPeopleAbove[i] = totalPeopleAbove[manager] + 1;
+            maxDepth = Math.max(maxDepth, totalPeopleAbove[i]);
+            totalSalaryFromCeo[i] = totalSalaryFromCeo[manager].add(salaryOf(i));
+            chainMax[i] = higherPaid(chainMax[manager], manager);
+
+            int grandManager = managers.get(manager);
+            salaryInverted[i] = salaryInverted[manager]
+                    || (grandManager != NIL && salaryOf(manager).compareTo(salaryOf(grandManager)) > 0);
+        }
+
+        int levels = 32 - Integer.numberOfLeadingZeros(Math.max(1, maxDepth));
+        ancestors = new int[levels][count];
+        bestPaid = new int[levels][count];
+        for (int i = 0; i < count; i++) {
+            ancestors[0][i] = managers.get(i);
+            bestPaid[0][i] = i;
+        }
+        for (int k = 1; k < levels; k++) {
+            for (int i = 0; i < count; i++) {
+                int halfway = ancestors[k - 1][i];
+                ancestors[k][i] = halfway == NIL ? NIL : ancestors[k - 1][halfway];
+                bestPaid[k][i] = halfway == NIL ? bestPaid[k - 1][i] : higherPaid(bestPaid[k - 1][i], bestPaid[k - 1][halfway]);
+            }
+        }
+    }
+
+    public ChainAggregate getChainAggregate(String employeeId) {
+        return createChainAggregate(indexOf(employeeId));
+    }
+
+    /**
+     * Chain aggregates of every employee connected to the CEO, in breadth-first order.
+     */
+    public List<ChainAggregate> getChainAggregates() {
+        List<ChainAggregate> chainAggregates = new ArrayList<>(employees.size());
+        for (int i = 0; i < employees.size(); i++) {
+            chainAggregates.add(createChainAggregate(i));
+        }
+        return chainAggregates;
+    }
+
+    /**
+     * Salaries along the path from one employee up to their lowest common manager with the other, and down to
+     * the other employee, in O(log depth).
+     */
+    public PathAggregate queryPath(String fromId, String toId) {
+        int from = indexOf(fromId);
+        int to = indexOf(toId);
+
+        int best = NIL;
+        int lower = totalPeopleAbove[from] >= totalPeopleAbove[to] ? from : to;
+        int upper = lower == from ? to : from;
+
+        // Lift the lower employee to the same level, then both until they meet
+        int difference = totalPeopleAbove[lower] - totalPeopleAbove[upper];
+        for (int k = 0; difference > 0; k++, difference >>= 1) {
+            if ((difference & 1) == 1) {
+                best = higherPaid(best, bestPaid[k][lower]);
+                lower = ancestors[k][lower];
+            }
+        }
+        for (int k = ancestors.length - 1; k >= 0 && lower != upper; k--) {
+            if (ancestors[k][lower] != ancestors[k][upper]) {
+                best = higherPaid(best, higherPaid(bestPaid[k][lower], bestPaid[k][upper]));
+                lower = ancestors[k][lower];
+                upper = ancestors[k][upper];
+            }
+        }
+        if (lower != upper) {
+            best = higherPaid(best, higherPaid(lower, upper));
+            lower = ancestors[0][lower];
+        }
+        int common = lower;
+        best = higherPaid(best, common);
+
+        BigDecimal totalSalary = totalSalaryFromCeo[from]
+                .add(totalSalaryFromCeo[to])
+                .subtract(totalSalaryFromCeo[common].multiply(BigDecimal.TWO))
+                .add(salaryOf(common));
+
+        return new PathAggregate(
+                fromId,
+                toId,
+                employees.get(common).getId(),
+                totalPeopleAbove[from] + totalPeopleAbove[to] - 2 * totalPeopleAbove[common] + 1,
+                totalSalary,
+                salaryOf(best));
+    }
+
+    private ChainAggregate createChainAggregate(int employee) {
+        return new ChainAggregate(
+                employees.get(employee).getId(),
+                totalPeopleAbove[employee] - 1, // Managers - CEO
+                totalSalaryFromCeo[employee].subtract(salaryOf(employee)),
+                chainMax[employee] == NIL ? null : salaryOf(chainMax[employee]),
+                salaryInverted[employee]);
+    }
+
+    private int higherPaid(int first, int second) {
+        if (first == NIL) {
+            return second;
+        }
+        if (second == NIL) {
+            return first;
+        }
+        return salaryOf(second).compareTo(salaryOf(first)) > 0 ? second : first;
+    }
+
+    private BigDecimal salaryOf(int employee) {
+        return employees.get(employee).getSalary();
+    }
+
+    private int indexOf(String employeeId) {
+        Integer index = indexById.get(employeeId);
+        if (index == null) {
+            throw new EmployeeNotFoundException();
+        }
+        return index;
+    }
+}
@@ -1,75 +1,347 @@
 package org.bigcompany.service;
 
 import org.bigcompany.model.Employee;
+import org.bigcompany.model.EmployeeMetrics;
 import org.bigcompany.model.EmployeeResult;
+import org.bigcompany.model.MetricType;
 import org.bigcompany.model.Metrics;
+import org.bigcompany.model.OrgAnalytics;
+import org.bigcompany.model.OrgShard;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
+/**
+ * Stateless analyses over a loaded hierarchy. The hierarchy is only read and every call collects its own results,
+ * so a single instance can run any number of analyses at once, over the same hierarchy or different ones.
+ * The hierarchy must not be modified while it is being analysed.
+ */
 public class CompanyService {
-    private List<EmployeeResult> overpaidManagers;
-    private List<EmployeeResult> underpaidManagers;
-    private List<EmployeeResult> employeesFarFromCeo;
+    static final int BATCH_SIZE = 4096;
 
     public Metrics navigateStructureAndProcessMetrics(Employee ceo) {
+        return navigateStructureAndProcessMetrics(ceo, EnumSet.allOf(MetricType.class));
+    }
+
+    /**
+     * Only computes what the requested metrics need, the lists that were not requested are left empty.
+     * Without {@link MetricType#EMPLOYEES_FAR_FROM_CEO} the depth of employees is not tracked, and without
+     * the salary metrics no salary is read and no {@link BigDecimal} is created, see {@link EmployeeResult}.
+     */
+    public Metrics navigateStructureAndProcessMetrics(Employee ceo, Set<MetricType> metricTypes) {
         if (ceo == null) {
             return null;
         }
 
-        overpaidManagers = new ArrayList<>();
-        underpaidManagers = new ArrayList<>();
-        employeesFarFromCeo = new ArrayList<>();
+        var collector = new MetricsCollector(metricTypes);
+        var aggregator = collector.checksSalaries() ? new SalaryAggregator() : null;
+        navigateBelowCeo(ceo, collector.checksDistanceToCeo(),
+                (batch, totalPeopleAbove) -> processBatch(batch, totalPeopleAbove, aggregator, collector));
 
-        Queue<Employee> queue = new LinkedList<>(ceo.getSubordinates());
-        while (!queue.isEmpty()) {
-            Employee employee = queue.poll();
-            processMetrics(employee);
+        return collector.toMetrics();
+    }
 
-            if (employee.getSubordinates() != null) {
-                queue.addAll(employee.getSubordinates());
+    /**
+     * Processes the members of a single shard. The map must hold every member of the shard already linked,
+     * with the summaries of their subordinates in other shards, see {@link org.bigcompany.io.CsvParser#parseShard(OrgShard)}.
+     */
+    public Metrics navigateShardAndProcessMetrics(OrgShard shard, Map<String, Employee> employeesById) {
+        List<Employee> roots = new ArrayList<>();
+        List<Integer> rootsTotalPeopleAbove = new ArrayList<>();
+        shard.rootTotalPeopleAbove().forEach((id, totalPeopleAbove) -> {
+            Employee root = employeesById.get(id);
+            if (totalPeopleAbove == 0) {
+                // The CEO is not evaluated, its subordinates are the roots instead
+                if (root.getSubordinates() != null) {
+                    root.getSubordinates().forEach(subordinate -> {
+                        roots.add(subordinate);
+                        rootsTotalPeopleAbove.add(1);
+                    });
+                }
+            } else {
+                roots.add(root);
+                rootsTotalPeopleAbove.add(totalPeopleAbove);
             }
-        }
+        });
+
+        var collector = new MetricsCollector(EnumSet.allOf(MetricType.class));
+        var aggregator = new SalaryAggregator();
+        navigateInBatches(
+                roots,
+                rootsTotalPeopleAbove.stream().mapToInt(Integer::intValue).toArray(),
+                true,
+                (batch, totalPeopleAbove) -> processBatch(batch, totalPeopleAbove, aggregator, collector));
 
+        return collector.toMetrics();
+    }
+
+    /**
+     * Merges the metrics of every shard of an organisation. Since shards are processed in any order,
+     * each list is sorted by distance to the CEO and then by id.
+     */
+    public Metrics mergeShardMetrics(List<Metrics> shardMetrics) {
         return new Metrics(
-                overpaidManagers,
-                underpaidManagers,
-                employeesFarFromCeo);
+                mergeShardResults(shardMetrics.stream().map(Metrics::overpaidManagers).toList()),
+                mergeShardResults(shardMetrics.stream().map(Metrics::underpaidManagers).toList()),
+                mergeShardResults(shardMetrics.stream().map(Metrics::employeesFarFromCeo).toList()));
+    }
+
+    private List<EmployeeResult> mergeShardResults(List<List<EmployeeResult>> shardResults) {
+        List<EmployeeResult> merged = new ArrayList<>();
+        shardResults.forEach(merged::addAll);
+        merged.sort(Comparator.comparingInt(EmployeeResult::totalManagersToCeo).thenComparing(EmployeeResult::id));
+        return merged;
     }
 
-    private void processMetrics(Employee employee) {
-        var differenceFromExpectedPay = BigDecimal.ZERO;
-        if (employee.isOverPaid()) {
-            differenceFromExpectedPay = employee.getOverpaidAmount();
-        } else if (employee.isUnderPaid()) {
-            differenceFromExpectedPay = employee.getUnderpaidAmount();
+    /**
+     * Computes every metric for every employee, including the ones that are not flagged, in breadth-first order.
+     */
+    public List<EmployeeMetrics> evaluateEmployees(Employee ceo) {
+        List<EmployeeMetrics> employeeMetrics = new ArrayList<>();
+        evaluateEmployees(ceo, employeeMetrics::add);
+        return employeeMetrics;
+    }
+
+    /**
+     * Same as {@link #evaluateEmployees(Employee)}, handing each employee to the consumer instead of keeping them all.
+     */
+    public void evaluateEmployees(Employee ceo, Consumer<EmployeeMetrics> consumer) {
+        if (ceo == null) {
+            return;
         }
 
-        EmployeeResult employeeResult = cretateEmployeeResult(employee, differenceFromExpectedPay);
+        consumer.accept(new EmployeeMetrics(
+                ceo.getId(),
+                ceo.getFirstName(),
+                ceo.getLastName(),
+                ceo.getSalary(),
+                ceo.getManagerId(),
+                ceo.getDirectSubortinatesAverageSalary(),
+                BigDecimal.ZERO,
+                ceo.getDistanceToCeo(),
+                false,
+                false,
+                false));
+
+        var aggregator = new SalaryAggregator();
+        navigateBelowCeo(ceo, true, (batch, totalPeopleAbove) -> evaluateBatch(batch, totalPeopleAbove, aggregator, consumer));
+    }
 
-        if (employee.isOverPaid()) {
-            overpaidManagers.add(employeeResult);
-        } else if (employee.isUnderPaid()) {
-            underpaidManagers.add(employeeResult);
+    /**
+     * Collects salary and span of control distributions with bounded-size sketches.
+     * Divisions are traversed in parallel, with the same breadth-first traversal as the metrics,
+     * and the partial sketches of each worker are merged.
+     */
+    public OrgAnalytics navigateStructureAndProcessAnalytics(Employee ceo) {
+        if (ceo == null) {
+            return null;
         }
 
-        if (employee.isFarFromCeo()) {
-            employeesFarFromCeo.add(employeeResult);
+        List<Employee> divisions = ceo.getSubordinates() == null ? List.of() : ceo.getSubordinates();
+        AnalyticsCollector collector = divisions.parallelStream()
+                .collect(AnalyticsCollector::new, this::collectDivision, AnalyticsCollector::merge);
+        collector.add(ceo, 0, null);
+
+        return collector.toAnalytics();
+    }
+
+    private void collectDivision(AnalyticsCollector collector, Employee divisionHead) {
+        // Levels count the managers above, which is the people above each employee with the CEO on level 0
+        navigateInBatches(List.of(divisionHead), new int[]{1}, true, (batch, totalPeopleAbove) -> {
+            for (int i = 0; i < batch.size(); i++) {
+                collector.add(batch.get(i), totalPeopleAbove[i], divisionHead.getId());
+            }
+        });
+    }
+
+    /**
+     * Computes every metric for the given employees, which must already be linked to their manager and subordinates.
+     * The number of people above each employee, CEO included, is given at the same position in {@code totalPeopleAbove}.
+     */
+    void evaluateBatch(List<Employee> batch, int[] totalPeopleAbove, SalaryAggregator aggregator,
+                       Consumer<EmployeeMetrics> consumer) {
+        if (!aggregator.aggregate(batch)) {
+            for (int i = 0; i < batch.size(); i++) {
+                Employee employee = batch.get(i);
+                BigDecimal directSubordinatesAverageSalary = employee.getDirectSubortinatesAverageSalary();
+                BigDecimal differenceFromExpectedPay = employee.getDifferenceFromExpectedPay(directSubordinatesAverageSalary);
+                consumer.accept(createEmployeeMetrics(
+                        employee,
+                        totalPeopleAbove[i],
+                        directSubordinatesAverageSalary,
+                        differenceFromExpectedPay.signum() > 0,
+                        differenceFromExpectedPay.signum() < 0,
+                        differenceFromExpectedPay));
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            consumer.accept(createEmployeeMetrics(
+                    batch.get(i),
+                    totalPeopleAbove[i],
+                    aggregator.getDirectSubordinatesAverageSalary(i),
+                    aggregator.isOverPaid(i),
+                    aggregator.isUnderPaid(i),
+                    aggregator.getDifferenceFromExpectedPay(i)));
         }
     }
 
-    private EmployeeResult cretateEmployeeResult(Employee employee, BigDecimal differenceFromExpectedPay) {
+    @FunctionalInterface
+    private interface BatchProcessor {
+        void process(List<Employee> batch, int[] totalPeopleAbove);
+    }
+
+    private void navigateBelowCeo(Employee ceo, boolean trackDepth, BatchProcessor batchProcessor) {
+        List<Employee> roots = ceo.getSubordinates() == null ? List.of() : ceo.getSubordinates();
+        int[] rootsTotalPeopleAbove = new int[roots.size()];
+        Arrays.fill(rootsTotalPeopleAbove, 1);
+
+        navigateInBatches(roots, rootsTotalPeopleAbove, trackDepth, batchProcessor);
+    }
+
+    /**
+     * Breadth-first traversal of the subtrees below the given roots, counting the people above each employee
+     * on the way down.
+     * When the depth is not tracked, the batch processor gets null instead of the people above each employee.
+     */
+    private void navigateInBatches(List<Employee> roots, int[] rootsTotalPeopleAbove, boolean trackDepth,
+                                   BatchProcessor batchProcessor) {
+        List<Employee> batch = new ArrayList<>(BATCH_SIZE);
+        int[] totalPeopleAbove = trackDepth ? new int[BATCH_SIZE] : null;
+
+        TreeMap<Integer, List<Employee>> rootsByTotalPeopleAbove = new TreeMap<>();
+        for (int i = 0; i < roots.size(); i++) {
+            rootsByTotalPeopleAbove.computeIfAbsent(rootsTotalPeopleAbove[i], depth -> new ArrayList<>()).add(roots.get(i));
+        }
+
+        List<Employee> level = new ArrayList<>();
+        int depth = 0;
+        while (!level.isEmpty() || !rootsByTotalPeopleAbove.isEmpty()) {
+            if (level.isEmpty()) {
+                depth = rootsByTotalPeopleAbove.firstKey();
+            }
+            List<Employee> levelRoots = rootsByTotalPeopleAbove.remove(depth);
+            if (levelRoots != null) {
+                level.addAll(levelRoots);
+            }
+
+            List<Employee> nextLevel = new ArrayList<>();
+            for (Employee employee : level) {
+                if (trackDepth) {
+                    totalPeopleAbove[batch.size()] = depth;
+                }
+                batch.add(employee);
+                if (batch.size() == BATCH_SIZE) {
+                    batchProcessor.process(batch, totalPeopleAbove);
+                    batch.clear();
+                }
+
+                if (employee.getSubordinates() != null) {
+                    nextLevel.addAll(employee.getSubordinates());
+                }
+            }
+            level = nextLevel;
+            depth++;
+        }
+        batchProcessor.process(batch, totalPeopleAbove);
+    }
+
+    /**
+     * Results are only created for employees that are in one of the requested lists.
+     * The aggregator is null when salaries are not checked, and so is {@code totalPeopleAbove} when depth is not.
+     */
+    private void processBatch(List<Employee> batch, int[] totalPeopleAbove, SalaryAggregator aggregator,
+                              MetricsCollector collector) {
+        if (aggregator != null && !aggregator.aggregate(batch)) {
+            for (int i = 0; i < batch.size(); i++) {
+                processMetrics(batch.get(i), totalPeopleAbove, i, collector);
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            boolean overpaid = aggregator != null && aggregator.isOverPaid(i);
+            boolean underpaid = aggregator != null && aggregator.isUnderPaid(i);
+            boolean farFromCeo = totalPeopleAbove != null && Employee.isFarFromCeo(totalPeopleAbove[i]);
+
+            if (collector.accepts(overpaid, underpaid, farFromCeo)) {
+                // Without salary checks the salary is left out, so it is never read
+                collector.add(
+                        cretateEmployeeResult(
+                                batch.get(i),
+                                aggregator == null ? null : batch.get(i).getSalary(),
+                                getManagersToCeo(totalPeopleAbove, i),
+                                aggregator == null ? null : aggregator.getDifferenceFromExpectedPay(i)),
+                        overpaid,
+                        underpaid,
+                        farFromCeo);
+            }
+        }
+    }
+
+    private void processMetrics(Employee employee, int[] totalPeopleAbove, int index, MetricsCollector collector) {
+        // The average salary of the direct subordinates is only computed once
+        BigDecimal differenceFromExpectedPay = employee.getDifferenceFromExpectedPay(employee.getDirectSubortinatesAverageSalary());
+        boolean overpaid = differenceFromExpectedPay.signum() > 0;
+        boolean underpaid = differenceFromExpectedPay.signum() < 0;
+        boolean farFromCeo = totalPeopleAbove != null && Employee.isFarFromCeo(totalPeopleAbove[index]);
+        if (!collector.accepts(overpaid, underpaid, farFromCeo)) {
+            return;
+        }
+
+        EmployeeResult employeeResult = cretateEmployeeResult(
+                employee,
+                employee.getSalary(),
+                getManagersToCeo(totalPeopleAbove, index),
+                differenceFromExpectedPay);
+        collector.add(employeeResult, overpaid, underpaid, farFromCeo);
+    }
+
+    private int getManagersToCeo(int[] totalPeopleAbove, int index) {
+        if (totalPeopleAbove == null) {
+            return EmployeeResult.MANAGERS_TO_CEO_NOT_COMPUTED;
+        }
+        return totalPeopleAbove[index] - 1; // Managers - CEO
+    }
+
+    private EmployeeResult cretateEmployeeResult(Employee employee, BigDecimal salary, int totalManagersToCeo,
+                                                 BigDecimal differenceFromExpectedPay) {
         return new EmployeeResult(
+                employee.getId(),
+                employee.getFirstName(),
+                employee.getLastName(),
+                salary,
+                employee.getManagerId(),
+                differenceFromExpectedPay,
+                totalManagersToCeo
+        );
+    }
+
+    private EmployeeMetrics createEmployeeMetrics(Employee employee, int totalPeopleAbove,
+                                                   BigDecimal directSubordinatesAverageSalary,
+                                                   boolean overpaid, boolean underpaid,
+                                                   BigDecimal differenceFromExpectedPay) {
+        return new EmployeeMetrics(
                 employee.getId(),
                 employee.getFirstName(),
                 employee.getLastName(),
                 employee.getSalary(),
                 employee.getManagerId(),
+                directSubordinatesAverageSalary,
                 differenceFromExpectedPay,
-                employee.getDistanceToCeo()
+                totalPeopleAbove - 1, // Managers - CEO
+                overpaid,
+                underpaid,
+                Employee.isFarFromCeo(totalPeopleAbove)
         );
     }
 }
@@ -0,0 +1,229 @@
+package org.bigcompany.service;
+
+import org.bigcompany.exceptions.EmployeeAlreadyExistsException;
+import org.bigcompany.model.EmployeeMetrics;
+import org.bigcompany.model.LookupPage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable index over the metrics of every employee, built once after loading and safe to share between threads.
+ * <p>
+ * Names are kept in sorted arrays, so exact and prefix searches are a pair of binary searches and any page of the
+ * matches is read directly, in O(log n). Names are matched ignoring case.
+ * Ids are found in an open addressing table keyed by primitive longs when every id is a plain number,
+ * otherwise in a sorted array of ids.
+ */
+public class EmployeeLookupIndex {
+    public enum NameField {
+        FIRST_NAME,
+        LAST_NAME
+    }
+
+    private static final int EMPTY = -1;
+
+    private final EmployeeMetrics[] employees;
+
+    private final String[] firstNames;
+    private final int[] byFirstName;
+    private final String[] lastNames;
+    private final int[] byLastName;
+
+    // Either the numeric table or the sorted ids are used, depending on the ids found
+    private final long[] numericIds;
+    private final int[] numericIdSlots;
+    private final String[] sortedIds;
+    private final int[] bySortedId;
+
+    public EmployeeLookupIndex(List<EmployeeMetrics> employeeMetrics) {
+        this.employees = employeeMetrics.toArray(EmployeeMetrics[]::new);
+
+        this.byFirstName = sortBy(employee -> normalize(employee.firstName()));
+        this.firstNames = sortedKeys(byFirstName, employee -> normalize(employee.firstName()));
+        this.byLastName = sortBy(employee -> normalize(employee.lastName()));
+        this.lastNames = sortedKeys(byLastName, employee -> normalize(employee.lastName()));
+
+        if (Arrays.stream(employees).allMatch(employee -> isPlainNumber(employee.id()))) {
+            int capacity = Integer.highestOneBit(Math.max(1, employees.length) * 2) * 2;
+            this.numericIds = new long[capacity];
+            this.numericIdSlots = new int[capacity];
+            Arrays.fill(numericIdSlots, EMPTY);
+            for (int i = 0; i < employees.length; i++) {
+                insertNumericId(Long.parseLong(employees[i].id()), i);
+            }
+            this.sortedIds = null;
+            this.bySortedId = null;
+        } else {
+            this.numericIds = null;
+            this.numericIdSlots = null;
+            this.bySortedId = sortBy(EmployeeMetrics::id);
+            this.sortedIds = sortedKeys(bySortedId, EmployeeMetrics::id);
+            for (int i = 1; i < sortedIds.length; i++) {
+                if (sortedIds[i].equals(sortedIds[i - 1])) {
+                    throw new EmployeeAlreadyExistsException();
+                }
+            }
+        }
+    }
+
+    public Optional<EmployeeMetrics> findById(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        if (numericIds != null) {
+            if (!isPlainNumber(id)) {
+                return Optional.empty();
+            }
+            long key = Long.parseLong(id);
+            int mask = numericIds.length - 1;
+            for (int slot = hash(key) & mask; numericIdSlots[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if (numericIds[slot] == key) {
+                    return Optional.of(employees[numericIdSlots[slot]]);
+                }
+            }
+            return Optional.empty();
+        }
+
+        int position = Arrays.binarySearch(sortedIds, id);
+        return position < 0 ? Optional.empty() : Optional.of(employees[bySortedId[position]]);
+    }
+
+    /**
+     * Employees whose name in the given field is exactly the given one, ignoring case.
+     */
+    public LookupPage findByName(NameField field, String name, int offset, int limit) {
+        String key = normalize(name);
+        return page(field, lowerBound(keysOf(field), key), upperBound(keysOf(field), key), offset, limit);
+    }
+
+    /**
+     * Employees whose name in the given field starts with the given prefix, ignoring case.
+     */
+    public LookupPage searchByPrefix(NameField field, String prefix, int offset, int limit) {
+        String key = normalize(prefix);
+        // Every name starting with the prefix sorts before the prefix followed by the highest character
+        return page(field, lowerBound(keysOf(field), key), lowerBound(keysOf(field), key + Character.MAX_VALUE), offset, limit);
+    }
+
+    public int size() {
+        return employees.length;
+    }
+
+    private LookupPage page(NameField field, int from, int to, int offset, int limit) {
+        if (offset < 0 || limit < 1) {
+            throw new IllegalArgumentException("Invalid page");
+        }
+
+        int[] positions = field == NameField.FIRST_NAME ? byFirstName : byLastName;
+        List<EmployeeMetrics> page = new ArrayList<>();
+        for (int i = from + offset; i < to && i < from + offset + limit; i++) {
+            page.add(employees[positions[i]]);
+        }
+        return new LookupPage(List.copyOf(page), to - from, offset, limit);
+    }
+
+    private String[] keysOf(NameField field) {
+        return field == NameField.FIRST_NAME ? firstNames : lastNames;
+    }
+
+    /**
+     * Positions of the employees sorted by the given key, then by their original position.
+     */
+    private int[] sortBy(Function<EmployeeMetrics, String> key) {
+        // Keys are computed once, not on every comparison
+        String[] keys = Arrays.stream(employees).parallel().map(key).toArray(String[]::new);
+        return IntStream.range(0, employees.length)
+                .boxed()
+                .parallel()
+                .sorted(Comparator.comparing((Integer position) -> keys[position])
+                        .thenComparing(Comparator.naturalOrder()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private String[] sortedKeys(int[] positions, Function<EmployeeMetrics, String> key) {
+        String[] keys = new String[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            keys[i] = key.apply(employees[positions[i]]);
+        }
+        return keys;
+    }
+
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(key) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void insertNumericId(long key, int position) {
+        int mask = numericIds.length - 1;
+        int slot = hash(key) & mask;
+        while (numericIdSlots[slot] != EMPTY) {
+            if (numericIds[slot] == key) {
+                throw new EmployeeAlreadyExistsException();
+            }
+            slot = (slot + 1) & mask;
+        }
+        numericIds[slot] = key;
+        numericIdSlots[slot] = position;
+    }
+
+    // Finalizer of MurmurHash3, spreads consecutive ids over the whole table
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * Digits only, without leading zeros, and small enough for a long, so the number maps back to the same id.
+     */
+    private static boolean isPlainNumber(String id) {
+        if (id.isEmpty() || id.length() > 18 || (id.length() > 1 && id.charAt(0) == '0')) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) < '0' || id.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,212 @@
+package org.bigcompany.service;
+
+import org.bigcompany.exceptions.CeoAlreadyExistsException;
+import org.bigcompany.exceptions.EmployeeAlreadyExistsException;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.EmployeeMetrics;
+import org.bigcompany.model.EmployeeResult;
+import org.bigcompany.model.Metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Keeps {@link Metrics} up to date while employees are added in any order.
+ * <p>
+ * Employees whose manager was not added yet are held as pending and linked as soon as the manager arrives.
+ * Only employees connected to the CEO are evaluated, and each addition only refreshes the new employees,
+ * the subtrees they connect and the managers whose direct subordinates changed.
+ */
+public class IncrementalAnalysis {
+    private final CompanyService companyService = new CompanyService();
+    private final SalaryAggregator aggregator = new SalaryAggregator();
+
+    private final Map<String, Employee> employeesById = new HashMap<>();
+    private final Map<String, List<Employee>> pendingByManagerId = new HashMap<>();
+    private int connectedCount;
+    private Employee ceo;
+
+    private final Map<String, EmployeeResult> overpaidManagers = new LinkedHashMap<>();
+    private final Map<String, EmployeeResult> underpaidManagers = new LinkedHashMap<>();
+    private final Map<String, EmployeeResult> employeesFarFromCeo = new LinkedHashMap<>();
+
+    /**
+     * Adds the whole batch, or nothing at all when one of the employees is already known or is a second CEO.
+     */
+    public void addEmployees(List<Employee> employees) {
+        validate(employees);
+        List<Employee> linked = new ArrayList<>();
+
+        for (Employee employee : employees) {
+            employeesById.put(employee.getId(), employee);
+
+            String managerId = employee.getManagerId();
+            if (isCeo(employee)) {
+                ceo = employee;
+                linked.add(employee);
+            } else if (employeesById.containsKey(managerId)) {
+                link(employee, employeesById.get(managerId));
+                linked.add(employee);
+            } else {
+                pendingByManagerId.computeIfAbsent(managerId, id -> new ArrayList<>()).add(employee);
+            }
+
+            List<Employee> waiting = pendingByManagerId.remove(employee.getId());
+            if (waiting != null) {
+                for (Employee subordinate : waiting) {
+                    link(subordinate, employee);
+                }
+            }
+        }
+
+        refresh(linked);
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(
+                List.copyOf(overpaidManagers.values()),
+                List.copyOf(underpaidManagers.values()),
+                List.copyOf(employeesFarFromCeo.values()));
+    }
+
+    /**
+     * Employees still waiting for their manager, or for some manager above them, to be added.
+     */
+    public int getPendingCount() {
+        return employeesById.size() - connectedCount;
+    }
+
+    public int getEmployeeCount() {
+        return employeesById.size();
+    }
+
+    private void validate(List<Employee> employees) {
+        Set<String> batchIds = new HashSet<>();
+        boolean ceoFound = ceo != null;
+        for (Employee employee : employees) {
+            if (employeesById.containsKey(employee.getId()) || !batchIds.add(employee.getId())) {
+                throw new EmployeeAlreadyExistsException();
+            }
+            if (isCeo(employee)) {
+                if (ceoFound) {
+                    throw new CeoAlreadyExistsException();
+                }
+                ceoFound = true;
+            }
+        }
+    }
+
+    private boolean isCeo(Employee employee) {
+        return employee.getManagerId() == null || employee.getManagerId().isEmpty();
+    }
+
+    private void link(Employee employee, Employee manager) {
+        employee.setManager(manager);
+        manager.addSubordinate(employee);
+    }
+
+    private void refresh(List<Employee> linked) {
+        Set<Employee> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Employee> connected = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<Employee, Integer> totalPeopleAbove = new IdentityHashMap<>();
+        if (ceo != null) {
+            totalPeopleAbove.put(ceo, 0);
+        }
+
+        for (Employee employee : linked) {
+            if (connected.contains(employee) || getTotalPeopleAbove(employee, totalPeopleAbove) < 0) {
+                continue;
+            }
+
+            // The whole subtree was either just added or pending until now. Parts of it may already have been
+            // reached from an employee linked earlier in the same batch, and are only counted once
+            Queue<Employee> queue = new ArrayDeque<>();
+            queue.add(employee);
+            while (!queue.isEmpty()) {
+                Employee current = queue.poll();
+                if (!connected.add(current)) {
+                    continue;
+                }
+                affected.add(current);
+                connectedCount++;
+                if (current.getSubordinates() != null) {
+                    for (Employee subordinate : current.getSubordinates()) {
+                        totalPeopleAbove.put(subordinate, totalPeopleAbove.get(current) + 1);
+                        queue.add(subordinate);
+                    }
+                }
+            }
+
+            if (employee.getManager() != null) {
+                affected.add(employee.getManager());
+            }
+        }
+
+        // The CEO is not evaluated, same as CompanyService.navigateStructureAndProcessMetrics
+        affected.remove(ceo);
+
+        List<Employee> batch = new ArrayList<>(affected);
+        for (int from = 0; from < batch.size(); from += CompanyService.BATCH_SIZE) {
+            var slice = batch.subList(from, Math.min(from + CompanyService.BATCH_SIZE, batch.size()));
+            int[] sliceTotalPeopleAbove = slice.stream().mapToInt(totalPeopleAbove::get).toArray();
+            companyService.evaluateBatch(slice, sliceTotalPeopleAbove, aggregator, this::update);
+        }
+    }
+
+    /**
+     * People above the employee, or -1 when it is not connected to the CEO. Every manager on the way up is
+     * remembered, so employees sharing managers only walk up to the first one already known.
+     */
+    private int getTotalPeopleAbove(Employee employee, Map<Employee, Integer> totalPeopleAbove) {
+        List<Employee> path = new ArrayList<>();
+        Employee current = employee;
+        Integer known = totalPeopleAbove.get(current);
+        while (known == null) {
+            // Bounded walk, rows reporting to each other in a cycle never reach the CEO
+            if (current.getManager() == null || path.size() >= employeesById.size()) {
+                return -1;
+            }
+            path.add(current);
+            current = current.getManager();
+            known = totalPeopleAbove.get(current);
+        }
+
+        int depth = known;
+        for (int i = path.size() - 1; i >= 0; i--) {
+            totalPeopleAbove.put(path.get(i), ++depth);
+        }
+        return depth;
+    }
+
+    private void update(EmployeeMetrics employee) {
+        var result = new EmployeeResult(
+                employee.id(),
+                employee.firstName(),
+                employee.lastName(),
+                employee.salary(),
+                employee.managerId(),
+                employee.differenceFromExpectedPay(),
+                employee.totalManagersToCeo());
+
+        updateList(overpaidManagers, employee.overpaid(), result);
+        updateList(underpaidManagers, employee.underpaid(), result);
+        updateList(employeesFarFromCeo, employee.farFromCeo(), result);
+    }
+
+    private void updateList(Map<String, EmployeeResult> results, boolean flagged, EmployeeResult result) {
+        if (flagged) {
+            results.put(result.id(), result);
+        } else {
+            results.remove(result.id());
+        }
+    }
+}
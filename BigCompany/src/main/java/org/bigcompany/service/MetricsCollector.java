@@ -0,0 +1,67 @@
+package org.bigcompany.service;
+
+import org.bigcompany.model.EmployeeResult;
+import org.bigcompany.model.MetricType;
+import org.bigcompany.model.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Flagged employees found by a single analysis. Each call gets its own collector, so analyses can run concurrently.
+ * Only the requested lists are filled.
+ */
+final class MetricsCollector {
+    private final boolean overpaidRequested;
+    private final boolean underpaidRequested;
+    private final boolean farFromCeoRequested;
+
+    private final List<EmployeeResult> overpaidManagers = new ArrayList<>();
+    private final List<EmployeeResult> underpaidManagers = new ArrayList<>();
+    private final List<EmployeeResult> employeesFarFromCeo = new ArrayList<>();
+
+    MetricsCollector(Set<MetricType> metricTypes) {
+        this.overpaidRequested = metricTypes.contains(MetricType.OVERPAID_MANAGERS);
+        this.underpaidRequested = metricTypes.contains(MetricType.UNDERPAID_MANAGERS);
+        this.farFromCeoRequested = metricTypes.contains(MetricType.EMPLOYEES_FAR_FROM_CEO);
+    }
+
+    boolean checksSalaries() {
+        return overpaidRequested || underpaidRequested;
+    }
+
+    boolean checksDistanceToCeo() {
+        return farFromCeoRequested;
+    }
+
+    /**
+     * Whether an employee with these flags belongs to any requested list.
+     */
+    boolean accepts(boolean overpaid, boolean underpaid, boolean farFromCeo) {
+        return (overpaid && overpaidRequested)
+                || (underpaid && underpaidRequested)
+                || (farFromCeo && farFromCeoRequested);
+    }
+
+    void add(EmployeeResult employeeResult, boolean overpaid, boolean underpaid, boolean farFromCeo) {
+        if (overpaid) {
+            if (overpaidRequested) {
+                overpaidManagers.add(employeeResult);
+            }
+        } else if (underpaid && underpaidRequested) {
+            underpaidManagers.add(employeeResult);
+        }
+
+        if (farFromCeo && farFromCeoRequested) {
+            employeesFarFromCeo.add(employeeResult);
+        }
+    }
+
+    Metrics toMetrics() {
+        return new Metrics(
+                overpaidManagers,
+                underpaidManagers,
+                employeesFarFromCeo);
+    }
+}
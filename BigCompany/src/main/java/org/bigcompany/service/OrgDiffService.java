@@ -0,0 +1,108 @@
+package org.bigcompany.service;
+
+import org.bigcompany.model.EmployeeMetrics;
+import org.bigcompany.model.MetricChange;
+import org.bigcompany.model.OrgDiff;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+public class OrgDiffService {
+
+    /**
+     * Same as {@link #compareSortedById(Iterator, Iterator, Consumer)}, sorting both snapshots in memory first
+     * and keeping every change, for snapshots that already fit in memory.
+     */
+    public OrgDiff compare(List<EmployeeMetrics> previous, List<EmployeeMetrics> current) {
+        Comparator<EmployeeMetrics> byId = Comparator.comparing(EmployeeMetrics::id);
+        List<MetricChange> changes = new ArrayList<>();
+        compareSortedById(previous.stream().sorted(byId).iterator(), current.stream().sorted(byId).iterator(), changes::add);
+        return new OrgDiff(changes);
+    }
+
+    /**
+     * Joins both snapshots by employee id with a sorted merge, so only one employee of each snapshot is held
+     * at a time. Changes are handed to the consumer as soon as they are found, and are not kept.
+     * Both snapshots must be sorted by id with {@link String#compareTo(String)}.
+     */
+    public void compareSortedById(Iterator<EmployeeMetrics> previous, Iterator<EmployeeMetrics> current,
+                                  Consumer<MetricChange> changes) {
+        EmployeeMetrics before = next(previous, null);
+        EmployeeMetrics after = next(current, null);
+
+        while (before != null || after != null) {
+            int comparison = before == null ? 1 : after == null ? -1 : before.id().compareTo(after.id());
+            if (comparison < 0) {
+                // Not present anymore
+                compareEmployee(before, null, changes);
+                before = next(previous, before);
+            } else if (comparison > 0) {
+                compareEmployee(null, after, changes);
+                after = next(current, after);
+            } else {
+                compareEmployee(before, after, changes);
+                before = next(previous, before);
+                after = next(current, after);
+            }
+        }
+    }
+
+    private EmployeeMetrics next(Iterator<EmployeeMetrics> snapshot, EmployeeMetrics last) {
+        if (!snapshot.hasNext()) {
+            return null;
+        }
+        EmployeeMetrics next = snapshot.next();
+        if (last != null && last.id().compareTo(next.id()) >= 0) {
+            throw new IllegalArgumentException("Snapshot is not sorted by id");
+        }
+        return next;
+    }
+
+    private void compareEmployee(EmployeeMetrics before, EmployeeMetrics after, Consumer<MetricChange> changes) {
+        boolean wasOverpaid = before != null && before.overpaid();
+        boolean isOverpaid = after != null && after.overpaid();
+        if (!wasOverpaid && isOverpaid) {
+            changes.accept(createChange(MetricChange.Type.BECAME_OVERPAID, before, after));
+        } else if (wasOverpaid && !isOverpaid) {
+            changes.accept(createChange(MetricChange.Type.NO_LONGER_OVERPAID, before, after));
+        }
+
+        boolean wasUnderpaid = before != null && before.underpaid();
+        boolean isUnderpaid = after != null && after.underpaid();
+        if (!wasUnderpaid && isUnderpaid) {
+            changes.accept(createChange(MetricChange.Type.BECAME_UNDERPAID, before, after));
+        } else if (wasUnderpaid && !isUnderpaid) {
+            changes.accept(createChange(MetricChange.Type.NO_LONGER_UNDERPAID, before, after));
+        }
+
+        boolean wasFarFromCeo = before != null && before.farFromCeo();
+        boolean isFarFromCeo = after != null && after.farFromCeo();
+        if (!wasFarFromCeo && isFarFromCeo) {
+            changes.accept(createChange(MetricChange.Type.BECAME_FAR_FROM_CEO, before, after));
+        } else if (wasFarFromCeo && !isFarFromCeo) {
+            changes.accept(createChange(MetricChange.Type.NO_LONGER_FAR_FROM_CEO, before, after));
+        }
+
+        var averageBefore = before == null ? null : before.directSubordinatesAverageSalary();
+        var averageAfter = after == null ? null : after.directSubordinatesAverageSalary();
+        if (!Objects.equals(averageBefore, averageAfter)) {
+            changes.accept(createChange(MetricChange.Type.AVERAGE_SALARY_CHANGED, before, after));
+        }
+    }
+
+    private MetricChange createChange(MetricChange.Type type, EmployeeMetrics before, EmployeeMetrics after) {
+        EmployeeMetrics employee = after != null ? after : before;
+        return new MetricChange(
+                type,
+                employee.id(),
+                employee.firstName(),
+                employee.lastName(),
+                before,
+                after
+        );
+    }
+}
@@ -0,0 +1,142 @@
+package org.bigcompany.service;
+
+/**
+ * Mergeable quantile sketch with a bounded memory footprint and a bounded relative error.
+ * <p>
+ * Values are counted in logarithmic buckets, so every quantile returned is within {@link #RELATIVE_ACCURACY}
+ * of a value that was actually added. Sketches built by different workers over disjoint parts of the
+ * data can be merged, and the result is the same as if all values had been added to a single sketch.
+ * Only positive values are bucketed, zero and negative values are counted together in a single bucket.
+ * <p>
+ * Buckets only cover the range of values added so far and grow as needed, up to {@link #MAX_BUCKETS}, so a sketch
+ * over salaries that are close to each other only holds a few hundred buckets.
+ */
+public final class QuantileSketch {
+    public static final double RELATIVE_ACCURACY = 0.01;
+    static final int MAX_BUCKETS = 2048;
+    static final int INITIAL_BUCKETS = 64;
+
+    // Fixed range of buckets, from about 3.6e-5 to 2.2e13, the same for every sketch
+    static final int MIN_INDEX = -512;
+    static final int MAX_INDEX = MIN_INDEX + MAX_BUCKETS - 1;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    // Allocated on the first positive value, counts[i] is the bucket offset + i
+    private long[] counts;
+    private int offset;
+
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void add(double value) {
+        if (value > 0) {
+            addToBucket((int) Math.ceil(Math.log(value) / LOG_GAMMA), 1);
+        } else {
+            zeroCount++;
+            count++;
+        }
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+
+        zeroCount += other.zeroCount;
+        count += other.zeroCount;
+        if (other.counts != null) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    addToBucket(other.offset + i, other.counts[i]);
+                }
+            }
+        }
+
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    int getBucketCount() {
+        return counts == null ? 0 : counts.length;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * @param quantile between 0 and 1
+     * @return the estimated value, or NaN when the sketch is empty
+     */
+    public double getQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        long rank = (long) (quantile * (count - 1));
+        if (rank < zeroCount) {
+            return Math.max(min, Math.min(0, max));
+        }
+
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                double estimate = 2 * Math.pow(GAMMA, offset + i) / (GAMMA + 1);
+                return Math.max(min, Math.min(estimate, max));
+            }
+        }
+        return max;
+    }
+
+    private void addToBucket(int index, long times) {
+        // Values outside the fixed range collapse into its first or last bucket. As the range does not depend on
+        // the values added, merged sketches still match a single one. This only affects extreme outliers.
+        index = Math.max(MIN_INDEX, Math.min(index, MAX_INDEX));
+        if (counts == null) {
+            counts = new long[INITIAL_BUCKETS];
+            offset = fitInRange(index - INITIAL_BUCKETS / 2, INITIAL_BUCKETS);
+        } else if (index < offset || index >= offset + counts.length) {
+            grow(index);
+        }
+
+        counts[index - offset] += times;
+        count += times;
+    }
+
+    /**
+     * At least doubles the buckets, so a sketch only grows a few times, towards the index that did not fit.
+     */
+    private void grow(int index) {
+        int from = Math.min(offset, index);
+        int to = Math.max(offset + counts.length, index + 1);
+        int length = Math.min(Math.max(to - from, 2 * counts.length), MAX_BUCKETS);
+        int newOffset = fitInRange(index < offset ? to - length : from, length);
+
+        long[] grown = new long[length];
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+
+    private static int fitInRange(int offset, int length) {
+        return Math.max(MIN_INDEX, Math.min(offset, MAX_INDEX - length + 1));
+    }
+}
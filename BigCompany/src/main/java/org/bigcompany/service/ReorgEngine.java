@@ -0,0 +1,412 @@
+package org.bigcompany.service;
+
+import org.bigcompany.exceptions.EmployeeNotFoundException;
+import org.bigcompany.exceptions.ManagerNotFoundException;
+import org.bigcompany.exceptions.ReportingCycleException;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.EmployeeResult;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Simulates reorganisations of a loaded hierarchy without rebuilding it.
+ * <p>
+ * The hierarchy is kept as its Euler tour, where each employee has an enter and a leave position and a subtree
+ * is the range between them. The tour is stored in an implicit treap holding the number of people above each
+ * employee, with a lazy add per node and the maximum of each node's range. Moving a subtree cuts its range,
+ * shifts all of its depths with a single lazy add and inserts it after its new manager, in O(log n) expected time.
+ * Direct subordinate totals are kept per manager, so the averages of the two affected managers are updated in O(1).
+ * <p>
+ * The loaded hierarchy is only read, changes are kept in this engine.
+ */
+public class ReorgEngine {
+    private static final int NIL = -1;
+    // Depth of leave positions, low enough to never count as far from the CEO after any number of moves
+    private static final int LEAVE_DEPTH = Integer.MIN_VALUE / 2;
+
+    private final List<Employee> employees = new ArrayList<>();
+    private final Map<String, Integer> indexById = new HashMap<>();
+    private final int[] managers;
+    private final List<Set<Integer>> directReports = new ArrayList<>();
+    private final BigDecimal[] directReportsSalary;
+    private final int[] directReportsCount;
+
+    // Treap over the Euler tour, position 2 * i enters employee i and position 2 * i + 1 leaves it
+    private final int[] left;
+    private final int[] right;
+    private final int[] parent;
+    private final int[] priority;
+    private final int[] size;
+    private final int[] depth;
+    private final int[] lazy;
+    private final int[] maxDepth;
+    private int root = NIL;
+
+    private int splitLeft;
+    private int splitRight;
+
+    public ReorgEngine(Employee ceo) {
+        List<Integer> managerIndexes = new ArrayList<>();
+        employees.add(ceo);
+        managerIndexes.add(NIL);
+        indexById.put(ceo.getId(), 0);
+        for (int head = 0; head < employees.size(); head++) {
+            List<Employee> subordinates = employees.get(head).getSubordinates();
+            if (subordinates != null) {
+                for (Employee subordinate : subordinates) {
+                    indexById.put(subordinate.getId(), employees.size());
+                    employees.add(subordinate);
+                    managerIndexes.add(head);
+                }
+            }
+        }
+
+        int count = employees.size();
+        managers = new int[count];
+        directReportsSalary = new BigDecimal[count];
+        directReportsCount = new int[count];
+        left = new int[2 * count];
+        right = new int[2 * count];
+        parent = new int[2 * count];
+        priority = new int[2 * count];
+        size = new int[2 * count];
+        depth = new int[2 * count];
+        lazy = new int[2 * count];
+        maxDepth = new int[2 * count];
+
+        int[] totalPeopleAbove = new int[count];
+        managers[0] = NIL;
+        for (int i = 0; i < count; i++) {
+            directReports.add(null);
+            directReportsSalary[i] = BigDecimal.ZERO;
+        }
+        for (int i = 1; i < count; i++) {
+            int manager = managerIndexes.get(i);
+            managers[i] = manager;
+            totalPeopleAbove[i] = totalPeopleAbove[manager] + 1;
+            addDirectReport(manager, i);
+        }
+
+        Random random = new Random(count);
+        for (int position = 0; position < 2 * count; position++) {
+            left[position] = NIL;
+            right[position] = NIL;
+            parent[position] = NIL;
+            priority[position] = random.nextInt();
+            size[position] = 1;
+            depth[position] = position % 2 == 0 ? totalPeopleAbove[position / 2] : LEAVE_DEPTH;
+            maxDepth[position] = depth[position];
+        }
+
+        // Euler tour in depth-first order, appended to the treap one position at a time
+        int[] stack = new int[count];
+        int[] nextSubordinate = new int[count];
+        int top = 0;
+        stack[0] = 0;
+        root = enter(0);
+        while (top >= 0) {
+            int employee = stack[top];
+            List<Employee> subordinates = employees.get(employee).getSubordinates();
+            if (subordinates != null && nextSubordinate[employee] < subordinates.size()) {
+                int subordinate = indexById.get(subordinates.get(nextSubordinate[employee]++).getId());
+                root = merge(root, enter(subordinate));
+                stack[++top] = subordinate;
+            } else {
+                root = merge(root, leave(employee));
+                top--;
+            }
+        }
+        parent[root] = NIL;
+    }
+
+    /**
+     * Moves the employee, along with everyone below them, to report to the new manager.
+     *
+     * @throws ReportingCycleException if the new manager is the employee or someone below them
+     */
+    public void moveSubtree(String employeeId, String newManagerId) {
+        move(indexOf(employeeId), managerIndexOf(newManagerId));
+    }
+
+    /**
+     * Moves the employee, along with everyone below them, to report to their manager's manager.
+     */
+    public void promote(String employeeId) {
+        int employee = indexOf(employeeId);
+        if (managers[employee] == NIL || managers[managers[employee]] == NIL) {
+            throw new ManagerNotFoundException();
+        }
+        move(employee, managers[managers[employee]]);
+    }
+
+    /**
+     * Moves every direct subordinate of one manager, along with their subtrees, to another manager.
+     *
+     * @throws ReportingCycleException if the receiving manager is below the other one
+     */
+    public void mergeTeams(String intoManagerId, String fromManagerId) {
+        int into = managerIndexOf(intoManagerId);
+        int from = managerIndexOf(fromManagerId);
+        if (into == from) {
+            return;
+        }
+        if (isInSubtree(into, from)) {
+            throw new ReportingCycleException();
+        }
+
+        if (directReports.get(from) != null) {
+            for (int subordinate : List.copyOf(directReports.get(from))) {
+                move(subordinate, into);
+            }
+        }
+    }
+
+    public String getManagerId(String employeeId) {
+        int manager = managers[indexOf(employeeId)];
+        return manager == NIL ? null : employees.get(manager).getId();
+    }
+
+    public int getTotalManagersToCeo(String employeeId) {
+        return depthOf(enter(indexOf(employeeId))) - 1; // Managers - CEO
+    }
+
+    /**
+     * Same value as {@link Employee#getDirectSubortinatesAverageSalary()} for the current direct subordinates.
+     */
+    public BigDecimal getDirectSubordinatesAverageSalary(String employeeId) {
+        int employee = indexOf(employeeId);
+        if (directReportsCount[employee] == 0) {
+            return null;
+        }
+        return directReportsSalary[employee].divide(new BigDecimal(directReportsCount[employee]), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Employees currently too far from the CEO, in depth-first order. Only the parts of the tour whose maximum depth
+     * is too far are visited, so the cost grows with the number of employees returned rather than the hierarchy.
+     * Salaries are not checked, so the difference from expected pay is null.
+     */
+    public List<EmployeeResult> getEmployeesFarFromCeo() {
+        List<EmployeeResult> results = new ArrayList<>();
+        collectFarFromCeo(root, 0, results);
+        return results;
+    }
+
+    private void collectFarFromCeo(int position, int pendingDepth, List<EmployeeResult> results) {
+        if (position == NIL || !Employee.isFarFromCeo(maxDepth[position] + pendingDepth)) {
+            return;
+        }
+
+        collectFarFromCeo(left[position], pendingDepth + lazy[position], results);
+        int totalPeopleAbove = depth[position] + pendingDepth;
+        if (position % 2 == 0 && Employee.isFarFromCeo(totalPeopleAbove)) {
+            int employee = position / 2;
+            results.add(new EmployeeResult(
+                    employees.get(employee).getId(),
+                    employees.get(employee).getFirstName(),
+                    employees.get(employee).getLastName(),
+                    employees.get(employee).getSalary(),
+                    employees.get(managers[employee]).getId(),
+                    null,
+                    totalPeopleAbove - 1));
+        }
+        collectFarFromCeo(right[position], pendingDepth + lazy[position], results);
+    }
+
+    private void move(int employee, int manager) {
+        if (isInSubtree(manager, employee)) {
+            throw new ReportingCycleException();
+        }
+        int oldManager = managers[employee];
+        if (oldManager == manager) {
+            return;
+        }
+
+        int delta = depthOf(enter(manager)) + 1 - depthOf(enter(employee));
+        int from = rank(enter(employee));
+        int to = rank(leave(employee));
+
+        split(root, from);
+        int before = splitLeft;
+        split(splitRight, to - from + 1);
+        int subtree = splitLeft;
+        int after = splitRight;
+        applyDepth(subtree, delta);
+        setRoot(merge(before, after));
+
+        split(root, rank(enter(manager)) + 1);
+        int head = splitLeft;
+        int tail = splitRight;
+        setRoot(merge(merge(head, subtree), tail));
+
+        removeDirectReport(oldManager, employee);
+        addDirectReport(manager, employee);
+        managers[employee] = manager;
+    }
+
+    private boolean isInSubtree(int employee, int subtreeRoot) {
+        int position = rank(enter(employee));
+        return position >= rank(enter(subtreeRoot)) && position <= rank(leave(subtreeRoot));
+    }
+
+    private void addDirectReport(int manager, int employee) {
+        if (directReports.get(manager) == null) {
+            directReports.set(manager, new LinkedHashSet<>());
+        }
+        directReports.get(manager).add(employee);
+        directReportsSalary[manager] = directReportsSalary[manager].add(employees.get(employee).getSalary());
+        directReportsCount[manager]++;
+    }
+
+    private void removeDirectReport(int manager, int employee) {
+        directReports.get(manager).remove(employee);
+        directReportsSalary[manager] = directReportsSalary[manager].subtract(employees.get(employee).getSalary());
+        directReportsCount[manager]--;
+    }
+
+    private int indexOf(String employeeId) {
+        Integer index = indexById.get(employeeId);
+        if (index == null) {
+            throw new EmployeeNotFoundException();
+        }
+        return index;
+    }
+
+    private int managerIndexOf(String managerId) {
+        Integer index = indexById.get(managerId);
+        if (index == null) {
+            throw new ManagerNotFoundException();
+        }
+        return index;
+    }
+
+    // Treap operations
+
+    private static int enter(int employee) {
+        return 2 * employee;
+    }
+
+    private static int leave(int employee) {
+        return 2 * employee + 1;
+    }
+
+    private void setRoot(int position) {
+        root = position;
+        if (root != NIL) {
+            parent[root] = NIL;
+        }
+    }
+
+    /**
+     * The lazy adds of a node are already applied to the node itself, so only the ones above it are pending.
+     */
+    private int depthOf(int position) {
+        int result = depth[position];
+        for (int above = parent[position]; above != NIL; above = parent[above]) {
+            result += lazy[above];
+        }
+        return result;
+    }
+
+    private int rank(int position) {
+        int result = sizeOf(left[position]);
+        for (int current = position, above = parent[position]; above != NIL; current = above, above = parent[above]) {
+            if (right[above] == current) {
+                result += sizeOf(left[above]) + 1;
+            }
+        }
+        return result;
+    }
+
+    private int sizeOf(int position) {
+        return position == NIL ? 0 : size[position];
+    }
+
+    private void applyDepth(int position, int delta) {
+        if (position != NIL) {
+            depth[position] += delta;
+            maxDepth[position] += delta;
+            lazy[position] += delta;
+        }
+    }
+
+    private void push(int position) {
+        if (lazy[position] != 0) {
+            applyDepth(left[position], lazy[position]);
+            applyDepth(right[position], lazy[position]);
+            lazy[position] = 0;
+        }
+    }
+
+    private void pull(int position) {
+        size[position] = 1 + sizeOf(left[position]) + sizeOf(right[position]);
+        maxDepth[position] = depth[position];
+        if (left[position] != NIL) {
+            maxDepth[position] = Math.max(maxDepth[position], maxDepth[left[position]]);
+            parent[left[position]] = position;
+        }
+        if (right[position] != NIL) {
+            maxDepth[position] = Math.max(maxDepth[position], maxDepth[right[position]]);
+            parent[right[position]] = position;
+        }
+    }
+
+    /**
+     * Splits the tour after its first {@code count} positions, into {@code splitLeft} and {@code splitRight}.
+     */
+    private void split(int position, int count) {
+        if (position == NIL) {
+            splitLeft = NIL;
+            splitRight = NIL;
+            return;
+        }
+
+        push(position);
+        if (sizeOf(left[position]) < count) {
+            split(right[position], count - sizeOf(left[position]) - 1);
+            right[position] = splitLeft;
+            pull(position);
+            splitLeft = position;
+        } else {
+            split(left[position], count);
+            left[position] = splitRight;
+            pull(position);
+            splitRight = position;
+        }
+
+        if (splitLeft != NIL) {
+            parent[splitLeft] = NIL;
+        }
+        if (splitRight != NIL) {
+            parent[splitRight] = NIL;
+        }
+    }
+
+    private int merge(int first, int second) {
+        if (first == NIL) {
+            return second;
+        }
+        if (second == NIL) {
+            return first;
+        }
+
+        if (priority[first] > priority[second]) {
+            push(first);
+            right[first] = merge(right[first], second);
+            pull(first);
+            return first;
+        }
+        push(second);
+        left[second] = merge(first, left[second]);
+        pull(second);
+        return second;
+    }
+}
@@ -0,0 +1,177 @@
+package org.bigcompany.service;
+
+import org.bigcompany.model.Employee;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Computes direct subordinates averages and salary checks for a batch of employees
+ * over contiguous primitive arrays instead of boxed {@link BigDecimal} streams.
+ * <p>
+ * Salaries are handled as cents, so the results are exactly the same as the ones computed by {@link Employee}.
+ * A batch containing a salary that can not be represented as a non-negative amount of cents is rejected,
+ * and the caller is expected to fall back to the {@link Employee} methods. So is a batch where a manager salary
+ * or the total salary of a manager's direct subordinates is over {@link #MAX_CENTS}, as the comparisons in
+ * {@link SalaryKernel#classify} would overflow.
+ */
+final class SalaryAggregator {
+    static final String VECTOR_PROPERTY = "bigcompany.vector";
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final int CENTS_SCALE = 2;
+
+    private static final BigDecimal UPPER_LIMIT = new BigDecimal(Employee.SALARY_PERCENTAGE_UPPER_LIMIT);
+    private static final BigDecimal LOWER_LIMIT = new BigDecimal(Employee.SALARY_PERCENTAGE_LOWER_LIMIT);
+    private static final long UPPER_SALARY_FACTOR = salaryFactor(UPPER_LIMIT);
+    private static final long UPPER_FACTOR = UPPER_LIMIT.unscaledValue().longValueExact();
+    private static final long LOWER_SALARY_FACTOR = salaryFactor(LOWER_LIMIT);
+    private static final long LOWER_FACTOR = LOWER_LIMIT.unscaledValue().longValueExact();
+
+    // Largest amount that can be multiplied by any of the factors, averages are never over the total they come from
+    static final long MAX_CENTS = Long.MAX_VALUE
+            / Math.max(Math.max(UPPER_SALARY_FACTOR, UPPER_FACTOR), Math.max(LOWER_SALARY_FACTOR, LOWER_FACTOR));
+
+    private final SalaryKernel kernel;
+
+    private long[] reportSalaries = new long[0];
+    private int[] offsets = new int[1];
+    private long[] managerSalaries = new long[0];
+    private long[] sums = new long[0];
+    private long[] unloadedSums = new long[0];
+    private int[] unloadedCounts = new int[0];
+    private long[] averages = new long[0];
+    private byte[] verdicts = new byte[0];
+
+    SalaryAggregator() {
+        this(selectKernel());
+    }
+
+    SalaryAggregator(SalaryKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    static SalaryKernel selectKernel() {
+        boolean enabled = Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"));
+        if (enabled && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            return new VectorSalaryKernel();
+        }
+        return new ScalarSalaryKernel();
+    }
+
+    /**
+     * Aggregates the direct subordinates of every employee in the batch.
+     *
+     * @return false if a salary can not be handled as cents, in which case no result is available
+     */
+    boolean aggregate(List<Employee> batch) {
+        int groups = batch.size();
+        ensureGroupCapacity(groups);
+
+        int reports = 0;
+        for (int g = 0; g < groups; g++) {
+            Employee manager = batch.get(g);
+            long managerSalary = manager.getSalaryInCents();
+            if (managerSalary < 0 || managerSalary > MAX_CENTS) {
+                return false;
+            }
+            managerSalaries[g] = managerSalary;
+            offsets[g] = reports;
+
+            unloadedSums[g] = manager.getUnloadedSubordinatesSalaryInCents();
+            unloadedCounts[g] = manager.getUnloadedSubordinatesCount();
+            if (unloadedSums[g] < 0 || unloadedSums[g] > MAX_CENTS) {
+                return false;
+            }
+
+            List<Employee> subordinates = manager.getSubordinates();
+            if (subordinates != null) {
+                ensureReportCapacity(reports + subordinates.size());
+                // Both terms are at most MAX_CENTS, so the total can be checked without overflowing first
+                long total = unloadedSums[g];
+                for (Employee subordinate : subordinates) {
+                    long salary = subordinate.getSalaryInCents();
+                    if (salary < 0 || salary > MAX_CENTS) {
+                        return false;
+                    }
+                    total += salary;
+                    if (total > MAX_CENTS) {
+                        return false;
+                    }
+                    reportSalaries[reports++] = salary;
+                }
+            }
+        }
+        offsets[groups] = reports;
+
+        kernel.sumByGroup(reportSalaries, offsets, groups, sums);
+
+        for (int g = 0; g < groups; g++) {
+            long count = offsets[g + 1] - offsets[g] + unloadedCounts[g];
+            long sum = sums[g] + unloadedSums[g];
+            // Same as BigDecimal.divide with scale 2 and RoundingMode.HALF_UP, for non-negative sums
+            averages[g] = count == 0 ? -1 : (2 * sum + count) / (2 * count);
+        }
+
+        kernel.classify(managerSalaries, averages, groups,
+                UPPER_SALARY_FACTOR, UPPER_FACTOR,
+                LOWER_SALARY_FACTOR, LOWER_FACTOR,
+                verdicts);
+
+        return true;
+    }
+
+    boolean isOverPaid(int index) {
+        return verdicts[index] == SalaryKernel.OVERPAID;
+    }
+
+    boolean isUnderPaid(int index) {
+        return verdicts[index] == SalaryKernel.UNDERPAID;
+    }
+
+    BigDecimal getDirectSubordinatesAverageSalary(int index) {
+        if (averages[index] < 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(averages[index], CENTS_SCALE);
+    }
+
+    /**
+     * Same value as {@link Employee#getOverpaidAmount()} or {@link Employee#getUnderpaidAmount()},
+     * depending on the verdict, or zero when the salary is within range.
+     */
+    BigDecimal getDifferenceFromExpectedPay(int index) {
+        return switch (verdicts[index]) {
+            case SalaryKernel.OVERPAID -> BigDecimal.valueOf(
+                    managerSalaries[index] * UPPER_SALARY_FACTOR - averages[index] * UPPER_FACTOR,
+                    CENTS_SCALE + UPPER_LIMIT.scale());
+            case SalaryKernel.UNDERPAID -> BigDecimal.valueOf(
+                    managerSalaries[index] * LOWER_SALARY_FACTOR - averages[index] * LOWER_FACTOR,
+                    CENTS_SCALE + LOWER_LIMIT.scale());
+            default -> BigDecimal.ZERO;
+        };
+    }
+
+    private static long salaryFactor(BigDecimal limit) {
+        return BigDecimal.ONE.movePointRight(limit.scale()).longValueExact();
+    }
+
+    private void ensureGroupCapacity(int groups) {
+        if (managerSalaries.length < groups) {
+            managerSalaries = new long[groups];
+            sums = new long[groups];
+            unloadedSums = new long[groups];
+            unloadedCounts = new int[groups];
+            averages = new long[groups];
+            verdicts = new byte[groups];
+            offsets = new int[groups + 1];
+        }
+    }
+
+    private void ensureReportCapacity(int reports) {
+        if (reportSalaries.length < reports) {
+            long[] grown = new long[Math.max(reports, reportSalaries.length * 2)];
+            System.arraycopy(reportSalaries, 0, grown, 0, reportSalaries.length);
+            reportSalaries = grown;
+        }
+    }
+}
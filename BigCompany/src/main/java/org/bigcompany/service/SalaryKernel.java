@@ -0,0 +1,26 @@
+package org.bigcompany.service;
+
+/**
+ * Primitive kernel used to aggregate salaries expressed in cents.
+ * <p>
+ * Salaries of the direct reports of group {@code g} are stored contiguously in
+ * {@code [offsets[g], offsets[g + 1])}, so each manager is reduced over a flat slice of the array.
+ */
+interface SalaryKernel {
+    byte WITHIN_RANGE = 0;
+    byte OVERPAID = 1;
+    byte UNDERPAID = 2;
+
+    void sumByGroup(long[] salaries, int[] offsets, int groups, long[] sums);
+
+    /**
+     * Compares each manager salary against the average of its group.
+     * A manager is overpaid when {@code salary * upperSalaryFactor > average * upperFactor}
+     * and underpaid when {@code salary * lowerSalaryFactor < average * lowerFactor}.
+     * Negative averages mark groups without direct reports, which are never flagged.
+     */
+    void classify(long[] managerSalaries, long[] averages, int groups,
+                  long upperSalaryFactor, long upperFactor,
+                  long lowerSalaryFactor, long lowerFactor,
+                  byte[] verdicts);
+}
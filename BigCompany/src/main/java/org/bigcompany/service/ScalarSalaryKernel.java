@@ -0,0 +1,37 @@
+package org.bigcompany.service;
+
+/**
+ * Plain loop implementation, used when the Vector API module is not available.
+ */
+final class ScalarSalaryKernel implements SalaryKernel {
+
+    @Override
+    public void sumByGroup(long[] salaries, int[] offsets, int groups, long[] sums) {
+        for (int g = 0; g < groups; g++) {
+            long sum = 0;
+            for (int i = offsets[g]; i < offsets[g + 1]; i++) {
+                sum += salaries[i];
+            }
+            sums[g] = sum;
+        }
+    }
+
+    @Override
+    public void classify(long[] managerSalaries, long[] averages, int groups,
+                         long upperSalaryFactor, long upperFactor,
+                         long lowerSalaryFactor, long lowerFactor,
+                         byte[] verdicts) {
+        for (int g = 0; g < groups; g++) {
+            long average = averages[g];
+            if (average < 0) {
+                verdicts[g] = WITHIN_RANGE;
+            } else if (managerSalaries[g] * upperSalaryFactor > average * upperFactor) {
+                verdicts[g] = OVERPAID;
+            } else if (managerSalaries[g] * lowerSalaryFactor < average * lowerFactor) {
+                verdicts[g] = UNDERPAID;
+            } else {
+                verdicts[g] = WITHIN_RANGE;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.bigcompany.service;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD implementation backed by {@code jdk.incubator.vector}.
+ * This class must only be loaded when the module is part of the boot layer, see {@link SalaryAggregator}.
+ */
+final class VectorSalaryKernel implements SalaryKernel {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public void sumByGroup(long[] salaries, int[] offsets, int groups, long[] sums) {
+        for (int g = 0; g < groups; g++) {
+            int from = offsets[g];
+            int to = offsets[g + 1];
+            int upperBound = from + SPECIES.loopBound(to - from);
+
+            long sum = 0;
+            int i = from;
+            if (i < upperBound) {
+                var accumulator = LongVector.zero(SPECIES);
+                for (; i < upperBound; i += SPECIES.length()) {
+                    accumulator = accumulator.add(LongVector.fromArray(SPECIES, salaries, i));
+                }
+                sum = accumulator.reduceLanes(VectorOperators.ADD);
+            }
+            for (; i < to; i++) {
+                sum += salaries[i];
+            }
+            sums[g] = sum;
+        }
+    }
+
+    @Override
+    public void classify(long[] managerSalaries, long[] averages, int groups,
+                         long upperSalaryFactor, long upperFactor,
+                         long lowerSalaryFactor, long lowerFactor,
+                         byte[] verdicts) {
+        int upperBound = SPECIES.loopBound(groups);
+        int g = 0;
+        for (; g < upperBound; g += SPECIES.length()) {
+            var salary = LongVector.fromArray(SPECIES, managerSalaries, g);
+            var average = LongVector.fromArray(SPECIES, averages, g);
+            VectorMask<Long> evaluated = average.compare(VectorOperators.GE, 0);
+
+            long overpaid = salary.mul(upperSalaryFactor)
+                    .compare(VectorOperators.GT, average.mul(upperFactor))
+                    .and(evaluated)
+                    .toLong();
+            long underpaid = salary.mul(lowerSalaryFactor)
+                    .compare(VectorOperators.LT, average.mul(lowerFactor))
+                    .and(evaluated)
+                    .toLong();
+
+            for (int lane = 0; lane < SPECIES.length(); lane++) {
+                if ((overpaid >>> lane & 1) != 0) {
+                    verdicts[g + lane] = OVERPAID;
+                } else if ((underpaid >>> lane & 1) != 0) {
+                    verdicts[g + lane] = UNDERPAID;
+                } else {
+                    verdicts[g + lane] = WITHIN_RANGE;
+                }
+            }
+        }
+
+        for (; g < groups; g++) {
+            long average = averages[g];
+            if (average < 0) {
+                verdicts[g] = WITHIN_RANGE;
+            } else if (managerSalaries[g] * upperSalaryFactor > average * upperFactor) {
+                verdicts[g] = OVERPAID;
+            } else if (managerSalaries[g] * lowerSalaryFactor < average * lowerFactor) {
+                verdicts[g] = UNDERPAID;
+            } else {
+                verdicts[g] = WITHIN_RANGE;
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.bigcompany.io;
+
+import org.bigcompany.model.EmployeeMetrics;
+import org.bigcompany.service.CompanyService;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestColumnarMetricsExporter {
+
+    @Test
+    void testRoundTrip() throws IOException {
+        List<EmployeeMetrics> employees = new CompanyService().evaluateEmployees(new CsvParser().parseCsv("src/test/resources/sample.csv"));
+        ColumnarMetricsFile file = export(employees);
+
+        assertEquals(employees.size(), file.getRowCount());
+        for (int row = 0; row < employees.size(); row++) {
+            EmployeeMetrics employee = employees.get(row);
+            assertEquals(employee.id(), file.getId(row));
+            assertEquals(employee.totalManagersToCeo(), file.getTotalManagersToCeo(row));
+            assertEquals(employee.directSubordinatesAverageSalary(), file.getDirectSubordinatesAverageSalary(row));
+            assertEquals(normalize(employee.differenceFromExpectedPay()), normalize(file.getDifferenceFromExpectedPay(row)));
+            assertEquals(employee.overpaid(), file.isOverpaid(row));
+            assertEquals(employee.underpaid(), file.isUnderpaid(row));
+            assertEquals(employee.farFromCeo(), file.isFarFromCeo(row));
+        }
+    }
+
+    @Test
+    void testColumnsCanBeScannedOnTheirOwn() throws IOException {
+        Random random = new Random(17);
+        List<EmployeeMetrics> employees = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            employees.add(new EmployeeMetrics(
+                    "Employee-" + i,
+                    "First",
+                    "Last",
+                    BigDecimal.TEN,
+                    null,
+                    random.nextBoolean() ? null : BigDecimal.valueOf(random.nextInt(10_000_000), 2),
+                    BigDecimal.valueOf(random.nextInt(2_000_000) - 1_000_000, 3),
+                    random.nextInt(10),
+                    random.nextInt(4) == 0,
+                    false,
+                    random.nextInt(3) == 0));
+        }
+        ColumnarMetricsFile file = export(employees);
+
+        ByteBuffer depths = file.column(ColumnarMetricsFile.Column.MANAGERS_TO_CEO);
+        long totalDepth = 0;
+        while (depths.hasRemaining()) {
+            totalDepth += depths.getInt();
+        }
+        assertEquals(employees.stream().mapToLong(EmployeeMetrics::totalManagersToCeo).sum(), totalDepth);
+
+        ByteBuffer flags = file.column(ColumnarMetricsFile.Column.FLAGS);
+        int farFromCeo = 0;
+        while (flags.hasRemaining()) {
+            farFromCeo += (flags.get() & ColumnarMetricsFile.FLAG_FAR_FROM_CEO) != 0 ? 1 : 0;
+        }
+        assertEquals(employees.stream().filter(EmployeeMetrics::farFromCeo).count(), farFromCeo);
+
+        assertEquals("Employee-99999", file.getId(99_999));
+        assertEquals(employees.get(123).directSubordinatesAverageSalary(), file.getDirectSubordinatesAverageSalary(123));
+        assertEquals(employees.get(456).differenceFromExpectedPay(), file.getDifferenceFromExpectedPay(456));
+    }
+
+    @Test
+    void testInvalidFilesAreRejected() throws IOException {
+        Path notColumnar = Files.createTempFile("not-columnar", ".bccm");
+        Files.writeString(notColumnar, "Id,firstName,lastName,salary,managerId\n123,Joe,Doe,60000,\n");
+        assertThrows(IOException.class, () -> ColumnarMetricsFile.open(notColumnar));
+
+        Path empty = Files.createTempFile("empty", ".bccm");
+        assertThrows(IOException.class, () -> ColumnarMetricsFile.open(empty));
+    }
+
+    @Test
+    void testValuesBeyondTheColumnsAreRejected() throws IOException {
+        var rounded = new EmployeeMetrics("1", "First", "Last", BigDecimal.TEN, null, null, new BigDecimal("-12.34567"), 0, false, true, false);
+        var tooLarge = new EmployeeMetrics("2", "First", "Last", BigDecimal.TEN, null, null, new BigDecimal("1e20"), 0, true, false, false);
+
+        Path output = Files.createTempFile("metrics", ".bccm");
+        try (var exporter = new ColumnarMetricsExporter()) {
+            exporter.add(rounded);
+            assertThrows(IOException.class, () -> exporter.add(tooLarge));
+
+            // Nothing of the rejected employee was written
+            exporter.writeTo(output);
+        }
+        ColumnarMetricsFile file = ColumnarMetricsFile.open(output);
+        assertEquals(1, file.getRowCount());
+        assertEquals(new BigDecimal("-12.346"), file.getDifferenceFromExpectedPay(0));
+    }
+
+    private ColumnarMetricsFile export(List<EmployeeMetrics> employees) throws IOException {
+        Path output = Files.createTempFile("metrics", ".bccm");
+        try (var exporter = new ColumnarMetricsExporter()) {
+            for (EmployeeMetrics employee : employees) {
+                exporter.add(employee);
+            }
+            exporter.writeTo(output);
+        }
+        assertEquals(0, Files.size(output) % ColumnarMetricsFile.COLUMN_ALIGNMENT);
+        return ColumnarMetricsFile.open(output);
+    }
+
+    private BigDecimal normalize(BigDecimal value) {
+        return value == null ? null : value.stripTrailingZeros();
+    }
+}
@@ -0,0 +1,61 @@
+package org.bigcompany.io;
+
+import org.bigcompany.model.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestCsvFileWatcher {
+
+    @Test
+    void testReadAppendedEmployees() throws IOException {
+        Path file = Files.createTempFile("watched", ".csv");
+        Files.writeString(file, """
+                Id,firstName,lastName,salary,managerId
+                123,Joe,Doe,60000,
+                124,Martin,Chek""");
+
+        try (var watcher = new CsvFileWatcher(file, new CsvParser(), line -> fail(line))) {
+            List<Employee> first = watcher.readAppendedEmployees();
+            assertEquals(List.of("123"), first.stream().map(Employee::getId).toList());
+
+            // Nothing new until the line is complete
+            assertTrue(watcher.readAppendedEmployees().isEmpty());
+
+            Files.writeString(file, "ov,45000,123\r\n125,Bob,Ronstad,47000,123\n", StandardOpenOption.APPEND);
+
+            List<Employee> second = watcher.readAppendedEmployees();
+            assertEquals(List.of("124", "125"), second.stream().map(Employee::getId).toList());
+            assertEquals("Chekov", second.getFirst().getLastName());
+            assertEquals("123", second.getFirst().getManagerId());
+        }
+    }
+
+    @Test
+    void testInvalidLineIsSkipped() throws IOException {
+        Path file = Files.createTempFile("watched", ".csv");
+        Files.writeString(file, """
+                Id,firstName,lastName,salary,managerId
+                123,Joe,Doe,60000,
+                124,Martin,Chekov,abc,123
+                """);
+
+        List<String> invalidLines = new ArrayList<>();
+        try (var watcher = new CsvFileWatcher(file, new CsvParser(), invalidLines::add)) {
+            assertEquals(List.of("123"), watcher.readAppendedEmployees().stream().map(Employee::getId).toList());
+            assertEquals(List.of("124,Martin,Chekov,abc,123"), invalidLines);
+
+            // Reported once, and the lines after it are still read
+            Files.writeString(file, "125,Bob,Ronstad,47000,123\n", StandardOpenOption.APPEND);
+            assertEquals(List.of("125"), watcher.readAppendedEmployees().stream().map(Employee::getId).toList());
+            assertEquals(1, invalidLines.size());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.bigcompany.io;
+
+import org.bigcompany.model.Metrics;
+import org.bigcompany.model.OrgShard;
+import org.bigcompany.service.CompanyService;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestCsvSharder {
+
+    @Test
+    void testShardedMetricsEqualFullRun() throws IOException {
+        Path file = createCompany(3_000);
+        var csvParser = new CsvParser();
+        var service = new CompanyService();
+
+        Metrics expected = service.mergeShardMetrics(List.of(
+                service.navigateStructureAndProcessMetrics(csvParser.parseCsv(file.toString()))));
+
+        try (var sharder = new CsvSharder()) {
+            List<OrgShard> shards = sharder.split(file, 100);
+            assertTrue(shards.size() > 1);
+            assertEquals(3_000, shards.stream().mapToInt(OrgShard::memberCount).sum());
+
+            Set<String> roots = new HashSet<>();
+            for (OrgShard shard : shards) {
+                assertTrue(loadedRows(shard) <= 100);
+                roots.addAll(shard.rootTotalPeopleAbove().keySet());
+            }
+            assertTrue(roots.contains("0"));
+
+            Metrics merged = processShards(service, shards);
+            assertFalse(expected.overpaidManagers().isEmpty());
+            assertFalse(expected.employeesFarFromCeo().isEmpty());
+            assertEquals(expected, merged);
+        }
+    }
+
+    @Test
+    void testWideManagerStaysWithinBudget() throws IOException {
+        // A CEO with a single manager above every other employee, which alone has many times the budget in reports
+        List<String> rows = new ArrayList<>();
+        rows.add("0,First0,Last0,500000,");
+        rows.add("1,First1,Last1,90000,0");
+        Random random = new Random(7);
+        for (int i = 2; i < 1_000; i++) {
+            rows.add(MessageFormat.format("{0},First{0},Last{0},{1},1", String.valueOf(i), String.valueOf(60_000 + random.nextInt(40_000))));
+        }
+        Collections.shuffle(rows, random);
+        Path file = Files.createTempFile("test-sharder-wide", ".csv");
+        Files.writeString(file, "Id,firstName,lastName,salary,managerId\n" + String.join("\n", rows) + "\n");
+
+        var service = new CompanyService();
+        Metrics expected = service.mergeShardMetrics(List.of(
+                service.navigateStructureAndProcessMetrics(new CsvParser().parseCsv(file.toString()))));
+
+        try (var sharder = new CsvSharder()) {
+            List<OrgShard> shards = sharder.split(file, 50);
+            assertEquals(1_000, shards.stream().mapToInt(OrgShard::memberCount).sum());
+            for (OrgShard shard : shards) {
+                assertTrue(loadedRows(shard) <= 50);
+            }
+
+            OrgShard managerShard = shards.stream()
+                    .filter(shard -> shard.unloadedSubordinates().containsKey("1"))
+                    .findFirst()
+                    .orElseThrow();
+            assertEquals(998, managerShard.unloadedSubordinates().get("1").count());
+
+            assertFalse(expected.overpaidManagers().isEmpty() && expected.underpaidManagers().isEmpty());
+            assertEquals(expected, processShards(service, shards));
+        }
+    }
+
+    @Test
+    void testSingleShardWhenEverythingFits() throws IOException {
+        try (var sharder = new CsvSharder()) {
+            List<OrgShard> shards = sharder.split(Path.of("src/test/resources/sample.csv"), 1_000);
+
+            assertEquals(1, shards.size());
+            assertTrue(shards.getFirst().unloadedSubordinates().isEmpty());
+            assertEquals(0, shards.getFirst().rootTotalPeopleAbove().get("123"));
+        }
+    }
+
+    @Test
+    void testInvalidBudget() throws IOException {
+        try (var sharder = new CsvSharder()) {
+            assertThrows(IllegalArgumentException.class, () -> sharder.split(Path.of("src/test/resources/sample.csv"), 0));
+            assertThrows(IllegalArgumentException.class, () -> sharder.split(Path.of("src/test/resources/sample.csv"), 1));
+        }
+    }
+
+    /**
+     * Rows of the shard file and summaries of subordinates in other shards, checking the file only holds the members.
+     */
+    private int loadedRows(OrgShard shard) throws IOException {
+        int rows = Files.readAllLines(Path.of(shard.filePath())).size() - 1;
+        assertEquals(shard.memberCount(), rows);
+        return rows + shard.unloadedSubordinates().size();
+    }
+
+    private Metrics processShards(CompanyService service, List<OrgShard> shards) {
+        var csvParser = new CsvParser();
+        List<Metrics> shardMetrics = shards.parallelStream()
+                .map(shard -> {
+                    try {
+                        return service.navigateShardAndProcessMetrics(shard, csvParser.parseShard(shard));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                })
+                .toList();
+        return service.mergeShardMetrics(shardMetrics);
+    }
+
+    /**
+     * Every employee reports to one of the few employees created just before, so the organisation is deep,
+     * and rows are shuffled so managers often come after their subordinates.
+     */
+    private Path createCompany(int size) throws IOException {
+        Random random = new Random(42);
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String managerId = i == 0 ? "" : String.valueOf(Math.max(0, i - 1 - random.nextInt(12)));
+            var salary = BigDecimal.valueOf(20_000_00L + random.nextInt(200_000_00), 2);
+            rows.add(MessageFormat.format("{0},First{0},Last{0},{1},{2}", String.valueOf(i), salary.toPlainString(), managerId));
+        }
+        Collections.shuffle(rows, random);
+
+        Path file = Files.createTempFile("test-sharder", ".csv");
+        Files.writeString(file, "Id,firstName,lastName,salary,managerId\n" + String.join("\n", rows) + "\n");
+        return file;
+    }
+}
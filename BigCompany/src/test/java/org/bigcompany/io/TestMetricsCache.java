@@ -0,0 +1,112 @@
+package org.bigcompany.io;
+
+import org.bigcompany.model.Metrics;
+import org.bigcompany.service.CompanyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestMetricsCache {
+    private static final Path SAMPLE_FILE = Path.of("src/test/resources/sample.csv");
+
+    private Path cacheDirectory;
+    private Metrics sampleMetrics;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cacheDirectory = Files.createTempDirectory("metrics-cache");
+        var ceo = new CsvParser().parseCsv(SAMPLE_FILE.toString());
+        sampleMetrics = new CompanyService().navigateStructureAndProcessMetrics(ceo);
+    }
+
+    @Test
+    void testPutAndGet() throws IOException {
+        var cache = new MetricsCache(cacheDirectory);
+        String key = cache.computeKey(SAMPLE_FILE);
+
+        assertTrue(cache.get(key).isEmpty());
+
+        cache.put(key, sampleMetrics);
+
+        assertEquals(sampleMetrics, cache.get(key).orElseThrow());
+    }
+
+    @Test
+    void testKeyDependsOnContent() throws IOException {
+        var cache = new MetricsCache(cacheDirectory);
+        Path copy = Files.createTempFile("sample-copy", ".csv");
+        Files.copy(SAMPLE_FILE, copy, StandardCopyOption.REPLACE_EXISTING);
+
+        assertEquals(cache.computeKey(SAMPLE_FILE), cache.computeKey(copy));
+
+        Files.writeString(copy, "999,New,Hire,1000,123\n", StandardOpenOption.APPEND);
+
+        assertNotEquals(cache.computeKey(SAMPLE_FILE), cache.computeKey(copy));
+    }
+
+    @Test
+    void testKeyChangesWithSameSizeAndModifiedTime() throws IOException {
+        var cache = new MetricsCache(cacheDirectory);
+        Path copy = Files.createTempFile("sample-copy", ".csv");
+        Files.copy(SAMPLE_FILE, copy, StandardCopyOption.REPLACE_EXISTING);
+        String key = cache.computeKey(copy);
+        cache.put(key, sampleMetrics);
+
+        // Edited in the middle with the last modified time kept, as cp -p or rsync -t do
+        FileTime lastModified = Files.getLastModifiedTime(copy);
+        String content = Files.readString(copy);
+        Files.writeString(copy, content.replace("Martin", "Marcos"));
+        Files.setLastModifiedTime(copy, lastModified);
+
+        String editedKey = cache.computeKey(copy);
+        assertNotEquals(key, editedKey);
+        assertTrue(cache.get(editedKey).isEmpty());
+    }
+
+    @Test
+    void testKeyWithoutWritableDirectory() throws IOException {
+        Path notADirectory = Files.createTempFile("not-a-directory", ".txt");
+        var cache = new MetricsCache(notADirectory.resolve("cache"));
+
+        assertEquals(new MetricsCache(cacheDirectory).computeKey(SAMPLE_FILE), cache.computeKey(SAMPLE_FILE));
+        assertThrows(IOException.class, () -> cache.put("key", sampleMetrics));
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() throws IOException {
+        var unbounded = new MetricsCache(cacheDirectory);
+        unbounded.put("first", sampleMetrics);
+        long entrySize = Files.size(cacheDirectory.resolve("first.metrics"));
+
+        // Room for two entries only
+        var cache = new MetricsCache(cacheDirectory, entrySize * 2);
+        cache.put("second", sampleMetrics);
+        Files.setLastModifiedTime(cacheDirectory.resolve("first.metrics"), FileTime.from(Instant.now().minusSeconds(120)));
+        Files.setLastModifiedTime(cacheDirectory.resolve("second.metrics"), FileTime.from(Instant.now().minusSeconds(60)));
+
+        // Reading the oldest entry makes it the most recently used one
+        assertTrue(cache.get("first").isPresent());
+        cache.put("third", sampleMetrics);
+
+        assertTrue(Files.exists(cacheDirectory.resolve("first.metrics")));
+        assertFalse(Files.exists(cacheDirectory.resolve("second.metrics")));
+        assertTrue(Files.exists(cacheDirectory.resolve("third.metrics")));
+    }
+
+    @Test
+    void testCorruptedEntryIsAMiss() throws IOException {
+        var cache = new MetricsCache(cacheDirectory);
+        Files.writeString(cacheDirectory.resolve("broken.metrics"), "not a cache entry");
+
+        assertTrue(cache.get("broken").isEmpty());
+    }
+}
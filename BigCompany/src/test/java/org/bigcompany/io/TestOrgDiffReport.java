@@ -0,0 +1,40 @@
+package org.bigcompany.io;
+
+import org.bigcompany.model.EmployeeMetrics;
+import org.bigcompany.model.MetricChange;
+import org.bigcompany.service.CompanyService;
+import org.bigcompany.service.OrgDiffService;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestOrgDiffReport {
+
+    @Test
+    void testChangesAreGroupedByType() throws IOException {
+        List<EmployeeMetrics> previous = new CompanyService().evaluateEmployees(new CsvParser().parseCsv("src/test/resources/sample.csv"));
+        List<EmployeeMetrics> current = previous.stream().filter(employee -> !employee.id().equals("310")).toList();
+        var expected = new OrgDiffService().compare(previous, current);
+
+        try (var report = new OrgDiffReport()) {
+            for (MetricChange change : expected.changes()) {
+                report.add(change);
+            }
+
+            for (MetricChange.Type type : MetricChange.Type.values()) {
+                List<String> lines = new ArrayList<>();
+                report.forEachLine(type, lines::add);
+
+                List<MetricChange> changes = expected.changesOfType(type);
+                assertEquals(changes.size(), report.getCount(type));
+                assertEquals(changes.stream().map(ResultsParser::formatChange).toList(), lines);
+            }
+            assertEquals(1, report.getCount(MetricChange.Type.NO_LONGER_FAR_FROM_CEO));
+            assertEquals(0, report.getCount(MetricChange.Type.BECAME_OVERPAID));
+        }
+    }
+}
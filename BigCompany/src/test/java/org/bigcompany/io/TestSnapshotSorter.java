@@ -0,0 +1,54 @@
+package org.bigcompany.io;
+
+import org.bigcompany.model.EmployeeMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestSnapshotSorter {
+
+    @Test
+    void testSpilledSnapshotIsReadBackById() throws IOException {
+        Random random = new Random(23);
+        List<EmployeeMetrics> employees = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            employees.add(new EmployeeMetrics(
+                    String.valueOf(i),
+                    "First",
+                    "Last",
+                    BigDecimal.valueOf(random.nextInt(100_000), 2),
+                    i == 0 ? null : String.valueOf(random.nextInt(i)),
+                    random.nextBoolean() ? null : BigDecimal.valueOf(random.nextInt(100_000), 2),
+                    BigDecimal.valueOf(random.nextInt(100_000) - 50_000, 3),
+                    i == 0 ? -1 : random.nextInt(8),
+                    random.nextBoolean(),
+                    false,
+                    random.nextBoolean()));
+        }
+        List<EmployeeMetrics> shuffled = new ArrayList<>(employees);
+        Collections.shuffle(shuffled, random);
+
+        // 9 employees per run and 4 runs merged at a time, so several merge passes are needed
+        List<EmployeeMetrics> sorted = new ArrayList<>();
+        try (var sorter = new SnapshotSorter(9, 4)) {
+            for (EmployeeMetrics employee : shuffled) {
+                sorter.add(employee);
+            }
+            assertTrue(sorter.getRunCount() > 4);
+            Iterator<EmployeeMetrics> iterator = sorter.sortedById();
+            iterator.forEachRemaining(sorted::add);
+        }
+
+        employees.sort(Comparator.comparing(EmployeeMetrics::id));
+        assertEquals(employees, sorted);
+    }
+}
@@ -0,0 +1,107 @@
+package org.bigcompany.io;
+
+import org.bigcompany.model.EmployeeMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestSortedResultsExporter {
+
+    @Test
+    void testSpilledRunsAreMergedInOrder() throws IOException {
+        List<EmployeeMetrics> employees = createEmployees(500);
+
+        Path inMemoryReport = Files.createTempFile("in-memory", ".csv");
+        try (var exporter = new SortedResultsExporter(SortedResultsExporter.SortOrder.ID, Integer.MAX_VALUE)) {
+            for (EmployeeMetrics employee : employees) {
+                exporter.add(employee);
+            }
+            exporter.writeTo(inMemoryReport);
+            assertEquals(0, exporter.getRunCount());
+        }
+
+        // 7 results per run and 3 runs merged at a time, so several merge passes are needed
+        Path spilledReport = Files.createTempFile("spilled", ".csv");
+        try (var exporter = new SortedResultsExporter(SortedResultsExporter.SortOrder.ID, 7, 3)) {
+            for (EmployeeMetrics employee : employees) {
+                exporter.add(employee);
+            }
+            assertTrue(exporter.getRunCount() > 3);
+            exporter.writeTo(spilledReport);
+        }
+
+        List<String> lines = Files.readAllLines(spilledReport);
+        assertEquals(Files.readAllLines(inMemoryReport), lines);
+
+        // Header, plus every far from CEO employee and every overpaid or underpaid one
+        long expectedRows = employees.stream().filter(EmployeeMetrics::farFromCeo).count()
+                + employees.stream().filter(employee -> employee.overpaid() || employee.underpaid()).count();
+        assertEquals(expectedRows + 1, lines.size());
+
+        assertTrue(lines.get(1).startsWith("FAR_FROM_CEO,"));
+        assertTrue(lines.getLast().startsWith("UNDERPAID,"));
+    }
+
+    @Test
+    void testSortByDifferenceFromExpectedPay() throws IOException {
+        List<EmployeeMetrics> employees = createEmployees(200);
+
+        Path report = Files.createTempFile("by-difference", ".csv");
+        try (var exporter = new SortedResultsExporter(SortedResultsExporter.SortOrder.DIFFERENCE_FROM_EXPECTED_PAY, 5)) {
+            for (EmployeeMetrics employee : employees) {
+                exporter.add(employee);
+            }
+            exporter.writeTo(report);
+        }
+
+        List<BigDecimal> overpaidDifferences = Files.readAllLines(report).stream()
+                .filter(line -> line.startsWith("OVERPAID,"))
+                .map(line -> new BigDecimal(line.split(",")[6]))
+                .toList();
+        List<BigDecimal> sorted = new ArrayList<>(overpaidDifferences);
+        Collections.sort(sorted);
+
+        assertFalse(overpaidDifferences.isEmpty());
+        assertEquals(sorted, overpaidDifferences);
+    }
+
+    @Test
+    void testCompareIds() {
+        assertTrue(SortedResultsExporter.compareIds("99", "123") < 0);
+        assertTrue(SortedResultsExporter.compareIds("0123", "124") < 0);
+        assertTrue(SortedResultsExporter.compareIds("999", "A1") < 0);
+        assertTrue(SortedResultsExporter.compareIds("A2", "A10") > 0);
+        assertEquals(0, SortedResultsExporter.compareIds("42", "42"));
+    }
+
+    private List<EmployeeMetrics> createEmployees(int count) {
+        var random = new Random(3);
+        List<EmployeeMetrics> employees = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int flag = random.nextInt(4);
+            employees.add(new EmployeeMetrics(
+                    String.valueOf(random.nextInt(1_000) * count + i),
+                    "First" + i,
+                    "Last" + i,
+                    new BigDecimal(50_000 + random.nextInt(50_000)),
+                    "1",
+                    null,
+                    flag == 1 ? BigDecimal.valueOf(random.nextInt(10_000_000), 3)
+                            : flag == 2 ? BigDecimal.valueOf(-random.nextInt(10_000_000), 3) : BigDecimal.ZERO,
+                    random.nextInt(10),
+                    flag == 1,
+                    flag == 2,
+                    random.nextBoolean()));
+        }
+        return employees;
+    }
+}
@@ -0,0 +1,77 @@
+package org.bigcompany.service;
+
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.MetricType;
+import org.bigcompany.model.Metrics;
+
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Measures each metric selection of {@link CompanyService} over the same hierarchy.
+ * Not part of the test suite, run it with:
+ * <pre>
+ * java --add-modules jdk.incubator.vector -cp target/classes:target/test-classes org.bigcompany.service.MetricSelectionBenchmark
+ * </pre>
+ */
+public class MetricSelectionBenchmark {
+    private static final int EMPLOYEES = 1_000_000;
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int MEASURED_ROUNDS = 10;
+
+    public static void main(String[] args) {
+        Employee ceo = createCompany();
+        var service = new CompanyService();
+
+        run("All metrics", service, ceo, EnumSet.allOf(MetricType.class));
+        run("Far from CEO only", service, ceo, EnumSet.of(MetricType.EMPLOYEES_FAR_FROM_CEO));
+        run("Salaries only", service, ceo, EnumSet.of(MetricType.OVERPAID_MANAGERS, MetricType.UNDERPAID_MANAGERS));
+        run("Overpaid only", service, ceo, EnumSet.of(MetricType.OVERPAID_MANAGERS));
+    }
+
+    private static void run(String name, CompanyService service, Employee ceo, Set<MetricType> metricTypes) {
+        long blackhole = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            blackhole += count(service.navigateStructureAndProcessMetrics(ceo, metricTypes));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            blackhole += count(service.navigateStructureAndProcessMetrics(ceo, metricTypes));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(MessageFormat.format("{0}: {1} ms per round (checksum {2})",
+                name, elapsed / MEASURED_ROUNDS / 1_000_000.0, blackhole));
+    }
+
+    private static long count(Metrics metrics) {
+        return metrics.overpaidManagers().size() + metrics.underpaidManagers().size() + metrics.employeesFarFromCeo().size();
+    }
+
+    // Each employee reports to one of the few employees created before, so the hierarchy is deep and narrow
+    private static Employee createCompany() {
+        Random random = new Random(42);
+        List<Employee> employees = new ArrayList<>(EMPLOYEES);
+        for (int i = 0; i < EMPLOYEES; i++) {
+            Employee employee = new Employee();
+            employee.setId(String.valueOf(i));
+            employee.setFirstName("First" + i);
+            employee.setLastName("Last" + i);
+            employee.setSalary(BigDecimal.valueOf(20_000_00L + random.nextInt(200_000_00), 2));
+            if (i > 0) {
+                Employee manager = employees.get(Math.max(0, i - 1 - random.nextInt(1_000)));
+                employee.setManagerId(manager.getId());
+                employee.setManager(manager);
+                manager.addSubordinate(employee);
+            }
+            employees.add(employee);
+        }
+        return employees.getFirst();
+    }
+}
@@ -0,0 +1,113 @@
+package org.bigcompany.service;
+
+import org.bigcompany.model.Employee;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the boxed stream reduction used by {@link Employee} with the primitive kernels.
+ * Not part of the test suite, run it with:
+ * <pre>
+ * java --add-modules jdk.incubator.vector -cp target/classes:target/test-classes org.bigcompany.service.SalaryAggregationBenchmark
+ * </pre>
+ */
+public class SalaryAggregationBenchmark {
+    private static final int MANAGERS = 2_000;
+    private static final int REPORTS_PER_MANAGER = 500;
+    private static final int WARMUP_ROUNDS = 50;
+    private static final int MEASURED_ROUNDS = 20;
+
+    public static void main(String[] args) {
+        List<Employee> managers = createManagers();
+
+        run("BigDecimal stream", () -> {
+            long overpaid = 0;
+            for (Employee manager : managers) {
+                if (isOverPaidWithStreams(manager)) {
+                    overpaid++;
+                }
+            }
+            return overpaid;
+        });
+
+        for (SalaryKernel kernel : availableKernels()) {
+            var aggregator = new SalaryAggregator(kernel);
+            run(kernel.getClass().getSimpleName(), () -> {
+                long overpaid = 0;
+                for (int from = 0; from < managers.size(); from += CompanyService.BATCH_SIZE) {
+                    var batch = managers.subList(from, Math.min(from + CompanyService.BATCH_SIZE, managers.size()));
+                    aggregator.aggregate(batch);
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (aggregator.isOverPaid(i)) {
+                            overpaid++;
+                        }
+                    }
+                }
+                return overpaid;
+            });
+        }
+    }
+
+    private interface Round {
+        long run();
+    }
+
+    private static void run(String name, Round round) {
+        long blackhole = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            blackhole += round.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            blackhole += round.run();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(MessageFormat.format("{0}: {1} ms per round (checksum {2})",
+                name, elapsed / MEASURED_ROUNDS / 1_000_000.0, blackhole));
+    }
+
+    // Same computation as Employee.getDirectSubortinatesAverageSalary and isOverPaid
+    private static boolean isOverPaidWithStreams(Employee manager) {
+        BigDecimal total = manager.getSubordinates().stream()
+                .map(Employee::getSalary)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal average = total.divide(new BigDecimal(manager.getSubordinates().size()), 2, RoundingMode.HALF_UP);
+        return manager.getSalary().compareTo(average.multiply(new BigDecimal(Employee.SALARY_PERCENTAGE_UPPER_LIMIT))) > 0;
+    }
+
+    private static List<SalaryKernel> availableKernels() {
+        List<SalaryKernel> kernels = new ArrayList<>();
+        kernels.add(new ScalarSalaryKernel());
+        SalaryKernel selected = SalaryAggregator.selectKernel();
+        if (!(selected instanceof ScalarSalaryKernel)) {
+            kernels.add(selected);
+        }
+        return kernels;
+    }
+
+    private static List<Employee> createManagers() {
+        var random = new Random(7);
+        List<Employee> managers = new ArrayList<>(MANAGERS);
+        for (int i = 0; i < MANAGERS; i++) {
+            Employee manager = createEmployee(random);
+            for (int j = 0; j < REPORTS_PER_MANAGER; j++) {
+                manager.addSubordinate(createEmployee(random));
+            }
+            managers.add(manager);
+        }
+        return managers;
+    }
+
+    private static Employee createEmployee(Random random) {
+        Employee employee = new Employee();
+        employee.setSalary(BigDecimal.valueOf(30_000 + random.nextInt(90_000)));
+        return employee;
+    }
+}
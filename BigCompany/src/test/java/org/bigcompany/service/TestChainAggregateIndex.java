@@ -0,0 +1,122 @@
+package org.bigcompany.service;
+
+import org.bigcompany.io.CsvParser;
+import org.bigcompany.model.ChainAggregate;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.PathAggregate;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestChainAggregateIndex {
+
+    @Test
+    void testChainAggregates() throws IOException {
+        var index = new ChainAggregateIndex(new CsvParser().parseCsv("src/test/resources/sample.csv"));
+
+        ChainAggregate jose = index.getChainAggregate("310");
+        assertEquals(6, jose.totalManagersToCeo());
+        assertEquals(new BigDecimal("1609000"), jose.chainTotalSalary());
+        assertEquals(new BigDecimal("1000000"), jose.chainMaxSalary());
+        assertFalse(jose.salaryInverted());
+
+        ChainAggregate ceo = index.getChainAggregate("123");
+        assertEquals(BigDecimal.ZERO, ceo.chainTotalSalary());
+        assertNull(ceo.chainMaxSalary());
+
+        assertEquals(10, index.getChainAggregates().size());
+    }
+
+    @Test
+    void testSalaryInversion() throws IOException {
+        String csvContent = """
+                Id,firstName,lastName,salary,managerId
+                123,Joe,Doe,1000000,
+                124,Martin,Chekov,450000,123
+                300,Alice,Hasacat,500000,124
+                305,Brett,Hardleaf,34000,300
+                306,Andre,Silva,30000,305
+                """;
+        Path tempFile = Files.createTempFile("test-salary-inversion", ".csv");
+        Files.writeString(tempFile, csvContent);
+
+        var index = new ChainAggregateIndex(new CsvParser().parseCsv(tempFile.toString()));
+
+        // Alice earns more than her manager, which only shows in the chains of the people below her
+        assertFalse(index.getChainAggregate("300").salaryInverted());
+        assertTrue(index.getChainAggregate("305").salaryInverted());
+        assertTrue(index.getChainAggregate("306").salaryInverted());
+    }
+
+    @Test
+    void testQueryPath() throws IOException {
+        var index = new ChainAggregateIndex(new CsvParser().parseCsv("src/test/resources/sample.csv"));
+
+        PathAggregate acrossDivisions = index.queryPath("310", "125");
+        assertEquals("123", acrossDivisions.commonManagerId());
+        assertEquals(9, acrossDivisions.length());
+        assertEquals(new BigDecimal("1666000"), acrossDivisions.totalSalary());
+        assertEquals(new BigDecimal("1000000"), acrossDivisions.maxSalary());
+
+        PathAggregate withinTeam = index.queryPath("309", "307");
+        assertEquals("305", withinTeam.commonManagerId());
+        assertEquals(5, withinTeam.length());
+        assertEquals(new BigDecimal("142000"), withinTeam.totalSalary());
+        assertEquals(new BigDecimal("34000"), withinTeam.maxSalary());
+
+        PathAggregate self = index.queryPath("306", "306");
+        assertEquals(1, self.length());
+        assertEquals(new BigDecimal("30000"), self.totalSalary());
+    }
+
+    @Test
+    void testRandomPathsMatchChainWalk() {
+        Random random = new Random(11);
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Employee employee = new Employee();
+            employee.setId(String.valueOf(i));
+            employee.setSalary(BigDecimal.valueOf(random.nextInt(1_000_000), 2));
+            if (i > 0) {
+                Employee manager = employees.get(random.nextInt(i));
+                employee.setManager(manager);
+                manager.addSubordinate(employee);
+            }
+            employees.add(employee);
+        }
+
+        var index = new ChainAggregateIndex(employees.getFirst());
+        for (int query = 0; query < 500; query++) {
+            Employee from = employees.get(random.nextInt(employees.size()));
+            Employee to = employees.get(random.nextInt(employees.size()));
+
+            List<Employee> fromChain = chainWithSelf(from);
+            List<Employee> toChain = chainWithSelf(to);
+            Employee common = fromChain.stream().filter(toChain::contains).findFirst().orElseThrow();
+            List<Employee> path = new ArrayList<>(fromChain.subList(0, fromChain.indexOf(common) + 1));
+            path.addAll(toChain.subList(0, toChain.indexOf(common)));
+
+            PathAggregate result = index.queryPath(from.getId(), to.getId());
+            assertEquals(common.getId(), result.commonManagerId());
+            assertEquals(path.size(), result.length());
+            assertEquals(path.stream().map(Employee::getSalary).reduce(BigDecimal.ZERO, BigDecimal::add), result.totalSalary());
+            assertEquals(path.stream().map(Employee::getSalary).max(BigDecimal::compareTo).orElseThrow(), result.maxSalary());
+        }
+    }
+
+    private List<Employee> chainWithSelf(Employee employee) {
+        List<Employee> chain = new ArrayList<>();
+        for (Employee current = employee; current != null; current = current.getManager()) {
+            chain.add(current);
+        }
+        return chain;
+    }
+}
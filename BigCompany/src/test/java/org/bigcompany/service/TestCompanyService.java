@@ -2,15 +2,31 @@ package org.bigcompany.service;
 
 import org.bigcompany.io.CsvParser;
 import org.bigcompany.model.Employee;
+import org.bigcompany.model.EmployeeMetrics;
+import org.bigcompany.model.EmployeeResult;
+import org.bigcompany.model.MetricType;
+import org.bigcompany.model.Metrics;
+import org.bigcompany.model.OrgAnalytics;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestCompanyService {
 
@@ -66,4 +82,103 @@ public class TestCompanyService {
         assertEquals(5, carlosFarFromCeo.totalManagersToCeo());
         assertEquals(6, jose.totalManagersToCeo());
     }
+
+    @Test
+    void testNavigateStructureAndProcessAnalytics() throws IOException {
+        var ceo = new CsvParser().parseCsv("src/test/resources/sample.csv");
+
+        var analytics = new CompanyService().navigateStructureAndProcessAnalytics(ceo);
+
+        assertEquals(8, analytics.salaryByLevel().size());
+        assertEquals(1, analytics.salaryByLevel().get(0).count());
+        assertEquals(1000000, analytics.salaryByLevel().get(0).p50());
+        assertEquals(2, analytics.salaryByLevel().get(4).count());
+
+        assertEquals(2, analytics.salaryByDivision().size());
+        assertEquals(8, analytics.salaryByDivision().get("124").count());
+        assertEquals(450000, analytics.salaryByDivision().get("124").max());
+        assertEquals(1, analytics.salaryByDivision().get("125").count());
+
+        // Joe, Martin, Alice, Brett, Andre, Brandy and Carlos manage someone
+        assertEquals(7, analytics.spanOfControl().count());
+        assertEquals(2, analytics.spanOfControl().max());
+        assertEquals(2, analytics.spanOfControlByLevel().get(3).p50());
+    }
+
+    @Test
+    void testNavigateStructureAndProcessSelectedMetrics() throws IOException {
+        var ceo = new CsvParser().parseCsv("src/test/resources/sample.csv");
+        var service = new CompanyService();
+        var allMetrics = service.navigateStructureAndProcessMetrics(ceo);
+
+        var depthOnly = service.navigateStructureAndProcessMetrics(ceo, EnumSet.of(MetricType.EMPLOYEES_FAR_FROM_CEO));
+        assertTrue(depthOnly.overpaidManagers().isEmpty());
+        assertTrue(depthOnly.underpaidManagers().isEmpty());
+        assertEquals(List.of("309", "310"), depthOnly.employeesFarFromCeo().stream().map(EmployeeResult::id).toList());
+        assertEquals(6, depthOnly.employeesFarFromCeo().get(1).totalManagersToCeo());
+        assertNull(depthOnly.employeesFarFromCeo().get(0).differenceFromExpectedPay());
+        assertNull(depthOnly.employeesFarFromCeo().get(0).salary());
+
+        var salaryOnly = service.navigateStructureAndProcessMetrics(ceo,
+                EnumSet.of(MetricType.OVERPAID_MANAGERS, MetricType.UNDERPAID_MANAGERS));
+        assertTrue(salaryOnly.employeesFarFromCeo().isEmpty());
+        assertEquals(allMetrics.overpaidManagers().stream().map(EmployeeResult::differenceFromExpectedPay).toList(),
+                salaryOnly.overpaidManagers().stream().map(EmployeeResult::differenceFromExpectedPay).toList());
+        assertEquals(allMetrics.underpaidManagers().size(), salaryOnly.underpaidManagers().size());
+        assertEquals(EmployeeResult.MANAGERS_TO_CEO_NOT_COMPUTED, salaryOnly.overpaidManagers().get(0).totalManagersToCeo());
+        assertEquals(allMetrics.overpaidManagers().get(0).salary(), salaryOnly.overpaidManagers().get(0).salary());
+
+        var overpaidOnly = service.navigateStructureAndProcessMetrics(ceo, EnumSet.of(MetricType.OVERPAID_MANAGERS));
+        assertEquals(2, overpaidOnly.overpaidManagers().size());
+        assertTrue(overpaidOnly.underpaidManagers().isEmpty());
+    }
+
+    @Test
+    void testConcurrentAnalysesOverTheSameHierarchy() throws Exception {
+        Random random = new Random(7);
+        StringBuilder csvContent = new StringBuilder("Id,firstName,lastName,salary,managerId\n");
+        for (int i = 0; i < 20_000; i++) {
+            String managerId = i == 0 ? "" : String.valueOf(Math.max(0, i - 1 - random.nextInt(40)));
+            csvContent.append(i).append(",First,Last,").append(10_000 + random.nextInt(90_000)).append(",").append(managerId).append("\n");
+        }
+        Path tempFile = Files.createTempFile("test-concurrent-analyses", ".csv");
+        Files.writeString(tempFile, csvContent);
+
+        // Loaded once and shared, along with a single service instance
+        Employee ceo = new CsvParser().parseCsv(tempFile.toString());
+        var service = new CompanyService();
+
+        Metrics expectedMetrics = service.navigateStructureAndProcessMetrics(ceo);
+        List<EmployeeMetrics> expectedEmployees = service.evaluateEmployees(ceo);
+        OrgAnalytics expectedAnalytics = service.navigateStructureAndProcessAnalytics(ceo);
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> analyses = new ArrayList<>();
+            for (int i = 0; i < threads * 4; i++) {
+                int analysis = i % 3;
+                analyses.add(executor.submit(() -> {
+                    start.await();
+                    switch (analysis) {
+                        case 0 -> assertEquals(expectedMetrics, service.navigateStructureAndProcessMetrics(ceo));
+                        case 1 -> assertEquals(expectedEmployees, service.evaluateEmployees(ceo));
+                        default -> assertEquals(expectedAnalytics, service.navigateStructureAndProcessAnalytics(ceo));
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> analysis : analyses) {
+                analysis.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // The hierarchy cannot be changed once it is shared
+        assertThrows(UnsupportedOperationException.class, () -> ceo.getSubordinates().add(new Employee()));
+    }
 }
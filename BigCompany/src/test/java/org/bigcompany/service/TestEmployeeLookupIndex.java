@@ -0,0 +1,86 @@
+package org.bigcompany.service;
+
+import org.bigcompany.exceptions.EmployeeAlreadyExistsException;
+import org.bigcompany.io.CsvParser;
+import org.bigcompany.model.EmployeeMetrics;
+import org.bigcompany.model.LookupPage;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestEmployeeLookupIndex {
+
+    @Test
+    void testFindById() throws IOException {
+        var index = new EmployeeLookupIndex(new CompanyService().evaluateEmployees(new CsvParser().parseCsv("src/test/resources/sample.csv")));
+
+        assertEquals(10, index.size());
+        EmployeeMetrics jose = index.findById("310").orElseThrow();
+        assertEquals("Jose", jose.firstName());
+        assertTrue(jose.farFromCeo());
+        assertEquals("Joe", index.findById("123").orElseThrow().firstName());
+        assertTrue(index.findById("999").isEmpty());
+        assertTrue(index.findById("0310").isEmpty());
+        assertTrue(index.findById("abc").isEmpty());
+    }
+
+    @Test
+    void testSearchByName() throws IOException {
+        var index = new EmployeeLookupIndex(new CompanyService().evaluateEmployees(new CsvParser().parseCsv("src/test/resources/sample.csv")));
+
+        LookupPage andre = index.searchByPrefix(EmployeeLookupIndex.NameField.FIRST_NAME, "AND", 0, 10);
+        assertEquals(2, andre.totalMatches());
+        assertEquals(List.of("306", "307"), andre.employees().stream().map(EmployeeMetrics::id).toList());
+
+        LookupPage exact = index.findByName(EmployeeLookupIndex.NameField.FIRST_NAME, "andre", 0, 10);
+        assertEquals(1, exact.totalMatches());
+        assertEquals("306", exact.employees().getFirst().id());
+
+        LookupPage silva = index.searchByPrefix(EmployeeLookupIndex.NameField.LAST_NAME, "Silv", 0, 10);
+        assertEquals(List.of("306", "308"), silva.employees().stream().map(EmployeeMetrics::id).toList());
+
+        assertEquals(10, index.searchByPrefix(EmployeeLookupIndex.NameField.LAST_NAME, "", 0, 20).totalMatches());
+        assertEquals(0, index.searchByPrefix(EmployeeLookupIndex.NameField.LAST_NAME, "Z", 0, 10).totalMatches());
+        assertThrows(IllegalArgumentException.class, () -> index.findByName(EmployeeLookupIndex.NameField.LAST_NAME, "Doe", -1, 10));
+    }
+
+    @Test
+    void testPaginationAndTextIds() {
+        Random random = new Random(5);
+        List<EmployeeMetrics> employees = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            String lastName = "Name" + random.nextInt(30);
+            employees.add(new EmployeeMetrics("E-" + i, "First", lastName, BigDecimal.TEN, null, null, null, 0, false, false, false));
+        }
+        var index = new EmployeeLookupIndex(employees);
+
+        // Pages put together are the same as a scan over every employee, in their original order
+        List<String> expected = employees.stream()
+                .filter(employee -> employee.lastName().toLowerCase().startsWith("name1"))
+                .sorted((first, second) -> first.lastName().compareTo(second.lastName()))
+                .map(EmployeeMetrics::id)
+                .toList();
+        List<String> found = new ArrayList<>();
+        for (int offset = 0; ; offset += 7) {
+            LookupPage page = index.searchByPrefix(EmployeeLookupIndex.NameField.LAST_NAME, "name1", offset, 7);
+            assertEquals(expected.size(), page.totalMatches());
+            if (page.employees().isEmpty()) {
+                break;
+            }
+            page.employees().forEach(employee -> found.add(employee.id()));
+        }
+        assertEquals(expected, found);
+
+        assertSame(employees.get(500), index.findById("E-500").orElseThrow());
+        assertTrue(index.findById("E-1000").isEmpty());
+
+        employees.add(employees.getFirst());
+        assertThrows(EmployeeAlreadyExistsException.class, () -> new EmployeeLookupIndex(employees));
+    }
+}
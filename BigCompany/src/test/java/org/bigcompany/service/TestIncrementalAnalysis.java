@@ -0,0 +1,118 @@
+package org.bigcompany.service;
+
+import org.bigcompany.exceptions.CeoAlreadyExistsException;
+import org.bigcompany.exceptions.EmployeeAlreadyExistsException;
+import org.bigcompany.io.CsvParser;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.EmployeeResult;
+import org.bigcompany.model.Metrics;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestIncrementalAnalysis {
+    private static final String SAMPLE_FILE = "src/test/resources/sample.csv";
+
+    @Test
+    void testEmployeesAddedBeforeTheirManagerArePending() throws IOException {
+        var parser = new CsvParser();
+        List<Employee> employees = new ArrayList<>(parser.csvToEmployeeList(SAMPLE_FILE).values());
+        // Deepest employees first, so every employee arrives before its manager
+        employees.sort(Comparator.comparing(Employee::getId).reversed());
+
+        var analysis = new IncrementalAnalysis();
+        analysis.addEmployees(employees.subList(0, 5));
+
+        assertEquals(5, analysis.getPendingCount());
+        assertTrue(analysis.getMetrics().employeesFarFromCeo().isEmpty());
+
+        analysis.addEmployees(employees.subList(5, employees.size()));
+
+        assertEquals(0, analysis.getPendingCount());
+        assertSameResults(expectedMetrics(), analysis.getMetrics());
+    }
+
+    @Test
+    void testEmployeesAddedOneByOne() throws IOException {
+        var parser = new CsvParser();
+        List<Employee> employees = new ArrayList<>(parser.csvToEmployeeList(SAMPLE_FILE).values());
+        employees.sort(Comparator.comparing(Employee::getId));
+
+        var analysis = new IncrementalAnalysis();
+        for (Employee employee : employees) {
+            analysis.addEmployees(List.of(employee));
+        }
+
+        assertEquals(0, analysis.getPendingCount());
+        assertSameResults(expectedMetrics(), analysis.getMetrics());
+    }
+
+    @Test
+    void testSubtreeReachedTwiceInOneBatchIsCountedOnce() {
+        var analysis = new IncrementalAnalysis();
+        analysis.addEmployees(List.of(employee("1", null)));
+        analysis.addEmployees(List.of(employee("3", "2")));
+        analysis.addEmployees(List.of(employee("4", "3")));
+        assertEquals(2, analysis.getPendingCount());
+
+        // 5 is linked to 3 before 2 connects 3 and everything below it to the CEO
+        analysis.addEmployees(List.of(employee("5", "3"), employee("2", "1")));
+
+        assertEquals(5, analysis.getEmployeeCount());
+        assertEquals(0, analysis.getPendingCount());
+    }
+
+    @Test
+    void testInvalidBatchIsNotAdded() {
+        var analysis = new IncrementalAnalysis();
+        analysis.addEmployees(List.of(employee("1", null), employee("2", "1")));
+
+        assertThrows(EmployeeAlreadyExistsException.class,
+                () -> analysis.addEmployees(List.of(employee("3", "1"), employee("2", "1"))));
+        assertThrows(EmployeeAlreadyExistsException.class,
+                () -> analysis.addEmployees(List.of(employee("3", "1"), employee("3", "2"))));
+        assertThrows(CeoAlreadyExistsException.class,
+                () -> analysis.addEmployees(List.of(employee("3", "1"), employee("4", null))));
+
+        assertEquals(2, analysis.getEmployeeCount());
+        assertEquals(0, analysis.getPendingCount());
+
+        // Nothing from the rejected batches was kept, so the same ids can still be added
+        analysis.addEmployees(List.of(employee("3", "1"), employee("4", "3")));
+        assertEquals(4, analysis.getEmployeeCount());
+        assertEquals(0, analysis.getPendingCount());
+    }
+
+    private Employee employee(String id, String managerId) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setFirstName("First");
+        employee.setLastName("Last");
+        employee.setSalary(new BigDecimal("1000"));
+        employee.setManagerId(managerId);
+        return employee;
+    }
+
+    private Metrics expectedMetrics() throws IOException {
+        var ceo = new CsvParser().parseCsv(SAMPLE_FILE);
+        return new CompanyService().navigateStructureAndProcessMetrics(ceo);
+    }
+
+    private void assertSameResults(Metrics expected, Metrics actual) {
+        assertEquals(asSet(expected.overpaidManagers()), asSet(actual.overpaidManagers()));
+        assertEquals(asSet(expected.underpaidManagers()), asSet(actual.underpaidManagers()));
+        assertEquals(asSet(expected.employeesFarFromCeo()), asSet(actual.employeesFarFromCeo()));
+    }
+
+    private Set<EmployeeResult> asSet(List<EmployeeResult> results) {
+        return results.stream().collect(Collectors.toSet());
+    }
+}
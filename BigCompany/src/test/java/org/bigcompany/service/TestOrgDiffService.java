@@ -0,0 +1,121 @@
+package org.bigcompany.service;
+
+import org.bigcompany.io.CsvParser;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.EmployeeMetrics;
+import org.bigcompany.model.MetricChange;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestOrgDiffService {
+
+    @Test
+    void testCompare() throws IOException {
+        String previousCsv = """
+                Id,firstName,lastName,salary,managerId
+                123,Joe,Doe,1000000,
+                124,Martin,Chekov,450000,123
+                125,Bob,Ronstad,47000,123
+                300,Alice,Hasacat,50000,124
+                305,Brett,Hardleaf,34000,300
+                306,Andre,Silva,30000,305
+                307,Andrey,Kokonenko,33000,305
+                308,Brandy,Silver,25000,306
+                309,Carlos,Garcia,20000,308
+                310,Jose,Perez,10000,309
+                """;
+
+        // Martin gets a pay cut, Jose leaves and Brett gets a raise
+        String currentCsv = """
+                Id,firstName,lastName,salary,managerId
+                123,Joe,Doe,1000000,
+                124,Martin,Chekov,60000,123
+                125,Bob,Ronstad,47000,123
+                300,Alice,Hasacat,50000,124
+                305,Brett,Hardleaf,40000,300
+                306,Andre,Silva,30000,305
+                307,Andrey,Kokonenko,33000,305
+                308,Brandy,Silver,25000,306
+                309,Carlos,Garcia,20000,308
+                """;
+
+        var service = new CompanyService();
+        var previous = service.evaluateEmployees(parse(previousCsv));
+        var current = service.evaluateEmployees(parse(currentCsv));
+
+        var diff = new OrgDiffService().compare(previous, current);
+
+        assertEquals(List.of("124", "309"), ids(diff.changesOfType(MetricChange.Type.NO_LONGER_OVERPAID)));
+        assertEquals(List.of("305"), ids(diff.changesOfType(MetricChange.Type.NO_LONGER_UNDERPAID)));
+        assertEquals(List.of("310"), ids(diff.changesOfType(MetricChange.Type.NO_LONGER_FAR_FROM_CEO)));
+        assertEquals(List.of("123", "300", "309"), ids(diff.changesOfType(MetricChange.Type.AVERAGE_SALARY_CHANGED)));
+        assertTrue(diff.changesOfType(MetricChange.Type.BECAME_OVERPAID).isEmpty());
+        assertTrue(diff.changesOfType(MetricChange.Type.BECAME_UNDERPAID).isEmpty());
+        assertTrue(diff.changesOfType(MetricChange.Type.BECAME_FAR_FROM_CEO).isEmpty());
+
+        var jose = diff.changesOfType(MetricChange.Type.NO_LONGER_FAR_FROM_CEO).getFirst();
+        assertNotNull(jose.before());
+        assertNull(jose.after());
+
+        var joe = diff.changesOfType(MetricChange.Type.AVERAGE_SALARY_CHANGED).getFirst();
+        assertEquals(new BigDecimal("248500.00"), joe.before().directSubordinatesAverageSalary());
+        assertEquals(new BigDecimal("53500.00"), joe.after().directSubordinatesAverageSalary());
+    }
+
+    @Test
+    void testCompareIdenticalSnapshots() throws IOException {
+        var service = new CompanyService();
+        var ceo = new CsvParser().parseCsv("src/test/resources/sample.csv");
+        List<EmployeeMetrics> metrics = service.evaluateEmployees(ceo);
+
+        var diff = new OrgDiffService().compare(metrics, metrics);
+
+        assertTrue(diff.changes().isEmpty());
+    }
+
+    @Test
+    void testCompareSortedById() throws IOException {
+        var service = new CompanyService();
+        var ceo = new CsvParser().parseCsv("src/test/resources/sample.csv");
+        List<EmployeeMetrics> previous = service.evaluateEmployees(ceo);
+        List<EmployeeMetrics> current = previous.stream()
+                .filter(employee -> !employee.id().equals("310"))
+                .sorted(Comparator.comparing(EmployeeMetrics::id))
+                .toList();
+
+        List<MetricChange> changes = new ArrayList<>();
+        new OrgDiffService().compareSortedById(
+                previous.stream().sorted(Comparator.comparing(EmployeeMetrics::id)).iterator(),
+                current.iterator(),
+                changes::add);
+
+        assertEquals(1, changes.size());
+        assertEquals(MetricChange.Type.NO_LONGER_FAR_FROM_CEO, changes.getFirst().type());
+        assertEquals("310", changes.getFirst().id());
+
+        // The CEO has no manager above, not the same distance as its direct subordinates
+        assertEquals(-1, previous.getFirst().totalManagersToCeo());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new OrgDiffService().compareSortedById(previous.reversed().iterator(), current.iterator(), change -> { }));
+    }
+
+    private List<String> ids(List<MetricChange> changes) {
+        return changes.stream().map(MetricChange::id).sorted().toList();
+    }
+
+    private Employee parse(String csvContent) throws IOException {
+        Path tempFile = Files.createTempFile("test-org-diff", ".csv");
+        Files.writeString(tempFile, csvContent);
+        return new CsvParser().parseCsv(tempFile.toString());
+    }
+}
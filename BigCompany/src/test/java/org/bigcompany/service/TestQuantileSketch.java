@@ -0,0 +1,93 @@
+package org.bigcompany.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestQuantileSketch {
+
+    @Test
+    void testQuantilesWithinRelativeAccuracy() {
+        var random = new Random(1);
+        double[] values = new double[100_000];
+        var sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 20_000 + random.nextDouble() * 180_000;
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double quantile : new double[]{0.5, 0.9, 0.99}) {
+            double expected = values[(int) (quantile * (values.length - 1))];
+            assertEquals(expected, sketch.getQuantile(quantile), expected * QuantileSketch.RELATIVE_ACCURACY);
+        }
+        assertEquals(values[0], sketch.getMin());
+        assertEquals(values[values.length - 1], sketch.getMax());
+        assertEquals(values.length, sketch.getCount());
+    }
+
+    @Test
+    void testMergeEqualsSingleSketch() {
+        var random = new Random(2);
+        var single = new QuantileSketch();
+        var left = new QuantileSketch();
+        var right = new QuantileSketch();
+        for (int i = 0; i < 10_000; i++) {
+            double value = random.nextInt(5) == 0 ? 0 : 1 + random.nextDouble() * 1_000_000;
+            single.add(value);
+            (i % 2 == 0 ? left : right).add(value);
+        }
+
+        left.merge(right);
+
+        assertEquals(single.getCount(), left.getCount());
+        for (double quantile : new double[]{0, 0.1, 0.5, 0.9, 0.99, 1}) {
+            assertEquals(single.getQuantile(quantile), left.getQuantile(quantile));
+        }
+    }
+
+    @Test
+    void testMergeWithDifferentBucketWindows() {
+        // Divisions with salaries far apart, plus outliers beyond the range of buckets, merged in any order
+        var random = new Random(3);
+        var single = new QuantileSketch();
+        List<QuantileSketch> divisions = new ArrayList<>();
+        double[] lowestSalaries = {1e-9, 5, 20_000, 3_000_000, 1e9, 1e18};
+        for (double lowestSalary : lowestSalaries) {
+            var division = new QuantileSketch();
+            for (int i = 0; i < 2_000; i++) {
+                double salary = lowestSalary * (1 + random.nextDouble() * 4);
+                single.add(salary);
+                division.add(salary);
+            }
+            assertTrue(division.getBucketCount() < QuantileSketch.MAX_BUCKETS);
+            divisions.add(division);
+        }
+
+        Collections.shuffle(divisions, random);
+        var merged = new QuantileSketch();
+        divisions.forEach(merged::merge);
+
+        assertEquals(single.getCount(), merged.getCount());
+        for (double quantile = 0; quantile <= 1; quantile += 0.05) {
+            assertEquals(single.getQuantile(quantile), merged.getQuantile(quantile));
+        }
+        assertEquals(single.getMin(), merged.getMin());
+        assertEquals(single.getMax(), merged.getMax());
+    }
+
+    @Test
+    void testEmptySketch() {
+        var sketch = new QuantileSketch();
+
+        assertEquals(0, sketch.getCount());
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+        assertThrows(IllegalArgumentException.class, () -> sketch.getQuantile(2));
+    }
+}
@@ -0,0 +1,144 @@
+package org.bigcompany.service;
+
+import org.bigcompany.exceptions.ManagerNotFoundException;
+import org.bigcompany.exceptions.ReportingCycleException;
+import org.bigcompany.io.CsvParser;
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.EmployeeResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestReorgEngine {
+
+    @Test
+    void testMoveSubtree() throws IOException {
+        var engine = new ReorgEngine(new CsvParser().parseCsv("src/test/resources/sample.csv"));
+        assertEquals(List.of("309", "310"), engine.getEmployeesFarFromCeo().stream().map(EmployeeResult::id).toList());
+
+        // Brandy and everyone below her now report to Martin
+        engine.moveSubtree("308", "124");
+
+        assertEquals("124", engine.getManagerId("308"));
+        assertEquals(1, engine.getTotalManagersToCeo("308"));
+        assertEquals(3, engine.getTotalManagersToCeo("310"));
+        assertTrue(engine.getEmployeesFarFromCeo().isEmpty());
+        assertNull(engine.getDirectSubordinatesAverageSalary("306"));
+        assertEquals(new BigDecimal("37500.00"), engine.getDirectSubordinatesAverageSalary("124"));
+    }
+
+    @Test
+    void testPromoteAndMergeTeams() throws IOException {
+        var engine = new ReorgEngine(new CsvParser().parseCsv("src/test/resources/sample.csv"));
+
+        engine.promote("306");
+        assertEquals("300", engine.getManagerId("306"));
+        assertEquals(List.of("310"), engine.getEmployeesFarFromCeo().stream().map(EmployeeResult::id).toList());
+
+        engine.mergeTeams("125", "124");
+        assertEquals("125", engine.getManagerId("300"));
+        assertNull(engine.getDirectSubordinatesAverageSalary("124"));
+        assertEquals(new BigDecimal("50000.00"), engine.getDirectSubordinatesAverageSalary("125"));
+        assertEquals(5, engine.getTotalManagersToCeo("310"));
+
+        assertThrows(ManagerNotFoundException.class, () -> engine.promote("125"));
+        assertThrows(ManagerNotFoundException.class, () -> engine.promote("123"));
+    }
+
+    @Test
+    void testCyclesAreRejected() throws IOException {
+        var engine = new ReorgEngine(new CsvParser().parseCsv("src/test/resources/sample.csv"));
+
+        assertThrows(ReportingCycleException.class, () -> engine.moveSubtree("124", "310"));
+        assertThrows(ReportingCycleException.class, () -> engine.moveSubtree("305", "305"));
+        assertThrows(ReportingCycleException.class, () -> engine.moveSubtree("123", "125"));
+        assertThrows(ReportingCycleException.class, () -> engine.mergeTeams("306", "300"));
+
+        // Nothing changed
+        assertEquals("124", engine.getManagerId("300"));
+        assertEquals(6, engine.getTotalManagersToCeo("310"));
+    }
+
+    @Test
+    void testRandomReorganisationsMatchRebuiltHierarchy() {
+        Random random = new Random(3);
+        int size = 400;
+        List<Employee> employees = new ArrayList<>();
+        Map<String, String> managerIds = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Employee employee = new Employee();
+            employee.setId(String.valueOf(i));
+            employee.setFirstName("First");
+            employee.setLastName("Last");
+            employee.setSalary(BigDecimal.valueOf(1_000 + random.nextInt(100_000)));
+            if (i > 0) {
+                Employee manager = employees.get(Math.max(0, i - 1 - random.nextInt(5)));
+                employee.setManagerId(manager.getId());
+                employee.setManager(manager);
+                manager.addSubordinate(employee);
+                managerIds.put(employee.getId(), manager.getId());
+            }
+            employees.add(employee);
+        }
+
+        var engine = new ReorgEngine(employees.getFirst());
+        for (int operation = 0; operation < 500; operation++) {
+            String employeeId = String.valueOf(1 + random.nextInt(size - 1));
+            String managerId = String.valueOf(random.nextInt(size));
+
+            boolean cycle = isAbove(managerIds, employeeId, managerId);
+            if (cycle) {
+                assertThrows(ReportingCycleException.class, () -> engine.moveSubtree(employeeId, managerId));
+            } else {
+                engine.moveSubtree(employeeId, managerId);
+                managerIds.put(employeeId, managerId);
+            }
+        }
+
+        TreeSet<String> expectedFarFromCeo = new TreeSet<>();
+        for (Employee employee : employees) {
+            int totalPeopleAbove = 0;
+            for (String id = employee.getId(); managerIds.containsKey(id); id = managerIds.get(id)) {
+                totalPeopleAbove++;
+            }
+            if (employee != employees.getFirst()) {
+                assertEquals(totalPeopleAbove - 1, engine.getTotalManagersToCeo(employee.getId()));
+            }
+            if (Employee.isFarFromCeo(totalPeopleAbove)) {
+                expectedFarFromCeo.add(employee.getId());
+            }
+
+            List<BigDecimal> salaries = employees.stream()
+                    .filter(other -> employee.getId().equals(managerIds.get(other.getId())))
+                    .map(Employee::getSalary)
+                    .toList();
+            BigDecimal expectedAverage = salaries.isEmpty() ? null : salaries.stream()
+                    .reduce(BigDecimal.ZERO, BigDecimal::add)
+                    .divide(new BigDecimal(salaries.size()), 2, RoundingMode.HALF_UP);
+            assertEquals(expectedAverage, engine.getDirectSubordinatesAverageSalary(employee.getId()));
+        }
+
+        assertFalse(expectedFarFromCeo.isEmpty());
+        assertEquals(expectedFarFromCeo, new TreeSet<>(engine.getEmployeesFarFromCeo().stream().map(EmployeeResult::id).toList()));
+    }
+
+    // Whether the employee is the given one or someone above them
+    private boolean isAbove(Map<String, String> managerIds, String candidateId, String employeeId) {
+        for (String id = employeeId; id != null; id = managerIds.get(id)) {
+            if (id.equals(candidateId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,125 @@
+package org.bigcompany.service;
+
+import org.bigcompany.model.Employee;
+import org.bigcompany.model.EmployeeMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSalaryAggregator {
+
+    @Test
+    void testKernelSelection() {
+        // Surefire adds jdk.incubator.vector to the boot layer
+        assertInstanceOf(VectorSalaryKernel.class, SalaryAggregator.selectKernel());
+    }
+
+    @Test
+    void testKernelsMatchEmployeeComputation() {
+        List<Employee> managers = createManagers(new Random(42), 200);
+
+        for (SalaryKernel kernel : List.of(new ScalarSalaryKernel(), new VectorSalaryKernel())) {
+            var aggregator = new SalaryAggregator(kernel);
+            assertTrue(aggregator.aggregate(managers));
+
+            for (int i = 0; i < managers.size(); i++) {
+                Employee manager = managers.get(i);
+                boolean overpaid = manager.isOverPaid();
+                boolean underpaid = !overpaid && manager.isUnderPaid();
+
+                assertEquals(manager.getDirectSubortinatesAverageSalary(), aggregator.getDirectSubordinatesAverageSalary(i));
+                assertEquals(overpaid, aggregator.isOverPaid(i));
+                assertEquals(underpaid, aggregator.isUnderPaid(i));
+
+                if (overpaid) {
+                    assertEquals(manager.getOverpaidAmount(), aggregator.getDifferenceFromExpectedPay(i));
+                } else if (underpaid) {
+                    assertEquals(manager.getUnderpaidAmount(), aggregator.getDifferenceFromExpectedPay(i));
+                } else {
+                    assertEquals(BigDecimal.ZERO, aggregator.getDifferenceFromExpectedPay(i));
+                }
+                assertEquals(aggregator.getDifferenceFromExpectedPay(i),
+                        manager.getDifferenceFromExpectedPay(manager.getDirectSubortinatesAverageSalary()));
+            }
+        }
+    }
+
+    @Test
+    void testBatchWithSubCentSalaryIsRejected() {
+        Employee manager = createEmployee("1", "1000");
+        Employee subordinate = createEmployee("2", "800.125");
+        manager.addSubordinate(subordinate);
+
+        var aggregator = new SalaryAggregator(new ScalarSalaryKernel());
+
+        assertFalse(aggregator.aggregate(List.of(manager)));
+    }
+
+    @Test
+    void testSalaryWithTrailingZerosMatchesEmployeeComputation() {
+        Employee manager = createEmployee("1", "1000.0000");
+        Employee subordinate = createEmployee("2", "500");
+        manager.addSubordinate(subordinate);
+        subordinate.setManager(manager);
+
+        assertFalse(new SalaryAggregator(new ScalarSalaryKernel()).aggregate(List.of(manager)));
+
+        // The fallback keeps the scale of the salary, same as the employee computation
+        List<EmployeeMetrics> metrics = new ArrayList<>();
+        new CompanyService().evaluateBatch(List.of(manager), new int[]{1}, new SalaryAggregator(), metrics::add);
+        assertTrue(metrics.getFirst().overpaid());
+        assertEquals(manager.getOverpaidAmount(), metrics.getFirst().differenceFromExpectedPay());
+        assertEquals(new BigDecimal("250.0000"), metrics.getFirst().differenceFromExpectedPay());
+    }
+
+    @Test
+    void testLargeSalariesMatchEmployeeComputation() {
+        Employee manager = createEmployee("1", "10000000000000000");
+        for (String salary : List.of("9000000000000000", "100")) {
+            Employee subordinate = createEmployee(salary, salary);
+            manager.addSubordinate(subordinate);
+            subordinate.setManager(manager);
+        }
+        assertTrue(manager.isOverPaid());
+
+        for (SalaryKernel kernel : List.of(new ScalarSalaryKernel(), new VectorSalaryKernel())) {
+            assertFalse(new SalaryAggregator(kernel).aggregate(List.of(manager)));
+
+            List<EmployeeMetrics> metrics = new ArrayList<>();
+            new CompanyService().evaluateBatch(List.of(manager), new int[]{1}, new SalaryAggregator(kernel), metrics::add);
+            assertTrue(metrics.getFirst().overpaid());
+            assertEquals(manager.getOverpaidAmount(), metrics.getFirst().differenceFromExpectedPay());
+            assertEquals(0, new BigDecimal("3249999999999925").compareTo(metrics.getFirst().differenceFromExpectedPay()));
+        }
+    }
+
+    private List<Employee> createManagers(Random random, int count) {
+        List<Employee> managers = new ArrayList<>();
+        int nextId = 0;
+        for (int i = 0; i < count; i++) {
+            Employee manager = createEmployee(String.valueOf(nextId++), randomSalary(random));
+            int reports = random.nextInt(40);
+            for (int j = 0; j < reports; j++) {
+                manager.addSubordinate(createEmployee(String.valueOf(nextId++), randomSalary(random)));
+            }
+            managers.add(manager);
+        }
+        return managers;
+    }
+
+    private String randomSalary(Random random) {
+        return BigDecimal.valueOf(20_000_00L + random.nextInt(100_000_00), 2).toPlainString();
+    }
+
+    private Employee createEmployee(String id, String salary) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setSalary(new BigDecimal(salary));
+        return employee;
+    }
+}